@@ -1,10 +1,64 @@
 package com.example;
 
+import com.mcsettlers.JobStatus;
+import com.mcsettlers.MCSettlers;
+import com.mcsettlers.SettlerStatusPayload;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.client.rendering.v1.hud.HudElementRegistry;
+import net.fabricmc.fabric.api.client.rendering.v1.hud.VanillaHudElements;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.RenderTickCounter;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.Identifier;
 
 public class ExampleModClient implements ClientModInitializer {
+	// Latest settler status per entity id, as sent by SettlerStatusSync
+	private static final Int2ObjectOpenHashMap<Received> STATUSES = new Int2ObjectOpenHashMap<>();
+
+	// Payload and the client world time it arrived at, to advance the break progress from
+	private record Received(SettlerStatusPayload payload, long time) {
+	}
+
 	@Override
 	public void onInitializeClient() {
-		// This entrypoint is suitable for setting up client-specific logic, such as rendering.
+		ClientPlayNetworking.registerGlobalReceiver(SettlerStatusPayload.ID, (payload, context) -> {
+			if (payload.status() == SettlerStatusPayload.NONE) {
+				STATUSES.remove(payload.entityId());
+			} else {
+				STATUSES.put(payload.entityId(), new Received(payload, context.client().world.getTime()));
+			}
+		});
+		// Entity ids are reused, don't let a new entity pick up a stale status
+		ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> STATUSES.remove(entity.getId()));
+		ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> STATUSES.clear());
+		HudElementRegistry.attachElementAfter(VanillaHudElements.CROSSHAIR,
+				Identifier.of(MCSettlers.MOD_ID, "settler_status"), ExampleModClient::renderStatus);
+	}
+
+	// Job status of the settler under the crosshair, just below it
+	private static void renderStatus(DrawContext context, RenderTickCounter tickCounter) {
+		MinecraftClient client = MinecraftClient.getInstance();
+		Entity target = client.targetedEntity;
+		if (target == null || client.options.hudHidden) {
+			return;
+		}
+		Received received = STATUSES.get(target.getId());
+		JobStatus status = received != null ? received.payload().getJobStatus() : null;
+		if (status == null) {
+			return;
+		}
+		String text = status.getLabel();
+		if (received.payload().progress() != SettlerStatusPayload.NONE) {
+			long elapsed = Math.max(0, client.world.getTime() - received.time());
+			long progress = Math.min(100, received.payload().progress() + elapsed * SettlerStatusPayload.PROGRESS_PER_TICK);
+			text = text + " " + progress + "%";
+		}
+		context.drawCenteredTextWithShadow(client.textRenderer, text,
+				context.getScaledWindowWidth() / 2, context.getScaledWindowHeight() / 2 + 10, 0xFFFFFFFF);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package com.mcsettlers.gametest;
+
+import com.mcsettlers.MCSettlers;
+import com.mcsettlers.SettlerLod;
+import com.mcsettlers.SettlerMetrics;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ai.brain.MemoryModuleType;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.GlobalPos;
+import net.minecraft.village.VillagerProfession;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Seeded forest with woodcutters on a grid of fletching tables, run for a fixed number of ticks.
+// Tune with -Dmcsettlers.stress.<settlers|ticks|seed|density|maxMeanMspt> and compare the logged report.
+public class ForestStressTest {
+    private static final int SETTLERS = Integer.getInteger("mcsettlers.stress.settlers", 8);
+    private static final int TICKS = Math.min(Integer.getInteger("mcsettlers.stress.ticks", 2400), 72000 - 100);
+    private static final long SEED = Long.getLong("mcsettlers.stress.seed", 42L);
+    private static final double DENSITY = Double.parseDouble(System.getProperty("mcsettlers.stress.density", "0.3"));
+    // Fail when the mean tick of the run is slower than this
+    private static final double MAX_MEAN_MSPT = Double.parseDouble(System.getProperty("mcsettlers.stress.maxMeanMspt", "50"));
+
+    // Side of the square forest, relative to the test origin. Matches the forest structure.
+    private static final int SIZE = 48;
+    // Workstations sit on a grid with this spacing, between the tree rows
+    private static final int SPACING = 9;
+
+    // Empty structure as big as the forest plus room to pillar, so the forest stays inside the test's box
+    @GameTest(structure = "mcsettlers-gametest:forest", maxTicks = 72000)
+    public void forestStress(TestContext context) {
+        generateForest(context);
+        spawnWoodcutters(context);
+
+        long brokenBefore = SettlerMetrics.BLOCKS_BROKEN.sum();
+        long gcBefore = gcMillis();
+        long wallStart = System.nanoTime();
+        // The test server has no players, so every settler would go coarse right away.
+        // Turned back on when the run ends, other tests get the server default.
+        SettlerLod.setEnabled(false);
+        TickRecorder.start(TICKS);
+
+        context.runAtTick(TICKS, () -> {
+            try {
+                TickRecorder.stop();
+                double wallMinutes = (System.nanoTime() - wallStart) / 60e9;
+                long broken = SettlerMetrics.BLOCKS_BROKEN.sum() - brokenBefore;
+                MCSettlers.LOGGER.info("[Stress] settlers={} ticks={} seed={} density={}",
+                        SETTLERS, TickRecorder.getTicks(), SEED, DENSITY);
+                MCSettlers.LOGGER.info("[Stress] mspt mean={} p50={} p95={} p99={} max={}",
+                        millis(TickRecorder.getMeanNanos()),
+                        millis(TickRecorder.getPercentileNanos(50)),
+                        millis(TickRecorder.getPercentileNanos(95)),
+                        millis(TickRecorder.getPercentileNanos(99)),
+                        millis(TickRecorder.getPercentileNanos(100)));
+                MCSettlers.LOGGER.info("[Stress] felled={} per game minute={} per wall minute={}",
+                        broken,
+                        String.format("%.1f", broken * 1200.0 / Math.max(1, TickRecorder.getTicks())),
+                        String.format("%.1f", broken / Math.max(wallMinutes, 1e-9)));
+                MCSettlers.LOGGER.info("[Stress] server thread allocated={} MB gc={} ms",
+                        TickRecorder.getAllocatedBytes() / (1024 * 1024), gcMillis() - gcBefore);
+                context.assertTrue(broken > 0, Text.literal("Woodcutters felled nothing in " + TICKS + " ticks"));
+                double meanMspt = TickRecorder.getMeanNanos() / 1e6;
+                context.assertTrue(meanMspt <= MAX_MEAN_MSPT,
+                        Text.literal("Mean tick " + millis(TickRecorder.getMeanNanos()) + " ms is over " + MAX_MEAN_MSPT + " ms"));
+            } finally {
+                SettlerLod.setEnabled(true);
+            }
+            context.complete();
+        });
+    }
+
+    // Grass floor with oak trees on a 3x3 grid, each planted with the given density
+    private static void generateForest(TestContext context) {
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                context.setBlockState(new BlockPos(x, 0, z), Blocks.GRASS_BLOCK);
+            }
+        }
+        Random random = new Random(SEED);
+        for (int x = 2; x < SIZE - 2; x += 3) {
+            for (int z = 2; z < SIZE - 2; z += 3) {
+                if (random.nextDouble() < DENSITY) {
+                    plantTree(context, random, x, z);
+                }
+            }
+        }
+    }
+
+    private static void plantTree(TestContext context, Random random, int x, int z) {
+        int top = 1 + 4 + random.nextInt(4);
+        for (int y = 1; y < top; y++) {
+            context.setBlockState(new BlockPos(x, y, z), Blocks.OAK_LOG);
+        }
+        for (int y = top - 2; y <= top; y++) {
+            int r = y == top ? 1 : 2;
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    BlockPos pos = new BlockPos(x + dx, y, z + dz);
+                    if (context.getBlockState(pos).isAir()) {
+                        context.setBlockState(pos, Blocks.OAK_LEAVES);
+                    }
+                }
+            }
+        }
+    }
+
+    // One fletcher per grid cell, each with an axe and its own fletching table as job site
+    private static void spawnWoodcutters(TestContext context) {
+        int perRow = (SIZE - SPACING) / SPACING + 1;
+        for (int i = 0; i < SETTLERS; i++) {
+            // Wrap onto the same grid when there are more settlers than cells
+            int cell = i % (perRow * perRow);
+            BlockPos table = new BlockPos(4 + (cell % perRow) * SPACING, 1, 4 + (cell / perRow) * SPACING);
+            context.setBlockState(table, Blocks.FLETCHING_TABLE);
+
+            VillagerEntity villager = context.spawnEntity(EntityType.VILLAGER, table.up());
+            villager.setVillagerData(villager.getVillagerData()
+                    .withProfession(context.getWorld().getRegistryManager(), VillagerProfession.FLETCHER));
+            // Keep the profession even if the job site memory is lost for a moment
+            villager.setExperience(1);
+            villager.getInventory().addStack(new ItemStack(Items.IRON_AXE));
+            villager.getBrain().remember(MemoryModuleType.JOB_SITE,
+                    GlobalPos.create(context.getWorld().getRegistryKey(), context.getAbsolutePos(table)));
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
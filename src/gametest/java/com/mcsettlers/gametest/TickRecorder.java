@@ -0,0 +1,80 @@
+package com.mcsettlers.gametest;
+
+import com.mcsettlers.SettlerMutations;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.util.Identifier;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+// Full server tick durations and server thread allocations while a stress test records
+public class TickRecorder implements ModInitializer {
+    // Runs after every other END_SERVER_TICK listener, including the settler pipeline and
+    // the batched block changes
+    private static final Identifier LATE = Identifier.of("mcsettlers-gametest", "late");
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long[] tickNanos = new long[0];
+    private static int ticks = 0;
+    private static boolean recording = false;
+    private static long tickStart;
+    private static long allocatedAtStart;
+    private static long allocatedAtStop;
+
+    @Override
+    public void onInitialize() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> tickStart = System.nanoTime());
+        ServerTickEvents.END_SERVER_TICK.addPhaseOrdering(Event.DEFAULT_PHASE, LATE);
+        ServerTickEvents.END_SERVER_TICK.addPhaseOrdering(SettlerMutations.PHASE, LATE);
+        ServerTickEvents.END_SERVER_TICK.register(LATE, server -> {
+            if (recording && ticks < tickNanos.length) {
+                tickNanos[ticks++] = System.nanoTime() - tickStart;
+            }
+        });
+    }
+
+    // Called on the server thread
+    public static void start(int maxTicks) {
+        tickNanos = new long[maxTicks];
+        ticks = 0;
+        allocatedAtStart = THREADS.getCurrentThreadAllocatedBytes();
+        recording = true;
+    }
+
+    // Called on the server thread
+    public static void stop() {
+        recording = false;
+        allocatedAtStop = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public static int getTicks() {
+        return ticks;
+    }
+
+    public static long getAllocatedBytes() {
+        return allocatedAtStop - allocatedAtStart;
+    }
+
+    // Tick time at the given percentile (0-100) in nanoseconds
+    public static long getPercentileNanos(double percentile) {
+        if (ticks == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(tickNanos, ticks);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * ticks) - 1;
+        return sorted[Math.max(0, Math.min(ticks - 1, index))];
+    }
+
+    public static long getMeanNanos() {
+        long total = 0;
+        for (int i = 0; i < ticks; i++) {
+            total += tickNanos[i];
+        }
+        return ticks == 0 ? 0 : total / ticks;
+    }
+}
@@ -0,0 +1,118 @@
+package com.mcsettlers.benchmark;
+
+import com.mcsettlers.TreeIndex;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+import java.util.Random;
+
+// In-memory flat world with a seeded forest on top, read through the same BlockView
+// interface as the live world. Density is the chance of a tree per 3x3 column cell.
+public class FakeForest implements BlockView {
+    public static final int SIZE = 64;
+    public static final int HEIGHT = 48;
+    public static final int GROUND_Y = 16;
+
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final BlockState[] states = new BlockState[SIZE * HEIGHT * SIZE];
+
+    public FakeForest(long seed, double density) {
+        java.util.Arrays.fill(states, AIR);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int y = 0; y < GROUND_Y - 1; y++) {
+                    set(x, y, z, Blocks.STONE.getDefaultState());
+                }
+                set(x, GROUND_Y - 1, z, Blocks.GRASS_BLOCK.getDefaultState());
+            }
+        }
+        Random random = new Random(seed);
+        for (int x = 2; x < SIZE - 2; x += 3) {
+            for (int z = 2; z < SIZE - 2; z += 3) {
+                if (random.nextDouble() < density) {
+                    plantTree(random, x, z);
+                }
+            }
+        }
+    }
+
+    // Oak-like tree: a 4-7 block trunk with a two layer canopy around the top
+    private void plantTree(Random random, int x, int z) {
+        int trunk = 4 + random.nextInt(4);
+        int top = GROUND_Y + trunk;
+        for (int y = GROUND_Y; y < top; y++) {
+            set(x, y, z, Blocks.OAK_LOG.getDefaultState());
+        }
+        for (int y = top - 2; y <= top; y++) {
+            int r = y == top ? 1 : 2;
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    if (get(x + dx, y, z + dz).isAir()) {
+                        set(x + dx, y, z + dz, Blocks.OAK_LEAVES.getDefaultState());
+                    }
+                }
+            }
+        }
+    }
+
+    // Index of the tree blocks, as TreeIndex would build it from chunk loads
+    public TreeIndex buildIndex() {
+        TreeIndex index = new TreeIndex();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    index.update(pos.set(x, y, z), AIR, get(x, y, z));
+                }
+            }
+        }
+        return index;
+    }
+
+    public BlockPos center() {
+        return new BlockPos(SIZE / 2, GROUND_Y, SIZE / 2);
+    }
+
+    private BlockState get(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= HEIGHT || z >= SIZE) {
+            return AIR;
+        }
+        return states[(y * SIZE + z) * SIZE + x];
+    }
+
+    private void set(int x, int y, int z, BlockState state) {
+        if (x >= 0 && y >= 0 && z >= 0 && x < SIZE && y < HEIGHT && z < SIZE) {
+            states[(y * SIZE + z) * SIZE + x] = state;
+        }
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return get(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getBottomY() {
+        return 0;
+    }
+
+    @Override
+    public int getHeight() {
+        return HEIGHT;
+    }
+}
@@ -0,0 +1,36 @@
+package com.mcsettlers.benchmark;
+
+import com.mcsettlers.BlockClassifier;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagGroupLoader;
+import net.minecraft.registry.tag.TagKey;
+
+import java.util.List;
+import java.util.Map;
+
+// Registers vanilla blocks and binds the block tags settler code checks, without a server
+public class MinecraftBootstrap {
+    private static boolean initialized = false;
+
+    public static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        Map<TagKey<Block>, List<RegistryEntry<Block>>> tags = Map.of(
+                BlockTags.LOGS, List.of(Registries.BLOCK.getEntry(Blocks.OAK_LOG)),
+                BlockTags.LEAVES, List.of(Registries.BLOCK.getEntry(Blocks.OAK_LEAVES)));
+        Registries.BLOCK.startTagReload(new TagGroupLoader.RegistryTags<>(RegistryKeys.BLOCK, tags)).apply();
+        BlockClassifier.rebuild();
+        initialized = true;
+    }
+}
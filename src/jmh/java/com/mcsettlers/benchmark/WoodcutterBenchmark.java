@@ -0,0 +1,111 @@
+package com.mcsettlers.benchmark;
+
+import com.mcsettlers.LogSearch;
+import com.mcsettlers.PillarPlan;
+import com.mcsettlers.TreeIndex;
+import com.mcsettlers.utils.RadiusGenerator;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Woodcutter hot paths against a generated forest. Run with ./gradlew jmh, the default
+// arguments add the GC profiler so gc.alloc.rate.norm reports bytes allocated per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WoodcutterBenchmark {
+    // Same as WoodcutterBrain.SEARCH_RADIUS
+    private static final int SEARCH_RADIUS = 10;
+
+    @Param({ "0.1", "0.3", "0.6" })
+    public double density;
+
+    @Param({ "42" })
+    public long seed;
+
+    private FakeForest forest;
+    private TreeIndex index;
+    private BlockPos villagerPos;
+    private BlockPos workstation;
+    private Vec3d eyePos;
+    private BlockPos[] raycastTargets;
+    private BlockPos[] pillarPositions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftBootstrap.initialize();
+        forest = new FakeForest(seed, density);
+        index = forest.buildIndex();
+        villagerPos = forest.center();
+        workstation = villagerPos.add(2, 0, 2);
+        eyePos = Vec3d.ofBottomCenter(villagerPos).add(0, 1.62, 0);
+
+        // Every tree block within reach of the villager, as break targets would be
+        List<BlockPos> targets = new ArrayList<>();
+        for (BlockPos pos : RadiusGenerator.radiusCoordinates(villagerPos.up(), 6)) {
+            if (index.isLog(pos) || index.isLeaves(pos)) {
+                targets.add(pos.toImmutable());
+            }
+        }
+        raycastTargets = targets.toArray(new BlockPos[0]);
+
+        // A villager pillaring up every trunk it could reach from the ground
+        List<BlockPos> pillars = new ArrayList<>();
+        for (BlockPos pos : RadiusGenerator.radiusCoordinates(villagerPos, SEARCH_RADIUS)) {
+            if (pos.getY() == FakeForest.GROUND_Y && index.isLog(pos)) {
+                pillars.add(pos.add(1, 2, 0));
+            }
+        }
+        pillarPositions = pillars.toArray(new BlockPos[0]);
+    }
+
+    @Benchmark
+    public void radiusCoordinates(Blackhole bh) {
+        for (BlockPos pos : RadiusGenerator.radiusCoordinates(villagerPos, SEARCH_RADIUS)) {
+            bh.consume(pos.getX());
+        }
+    }
+
+    @Benchmark
+    public BlockPos[] findNearbyLogAndApproachScan() {
+        return LogSearch.findNearbyLogAndApproach(forest, villagerPos, workstation, SEARCH_RADIUS);
+    }
+
+    @Benchmark
+    public BlockPos[] findNearbyLogAndApproachIndexed() {
+        return LogSearch.findNearbyLogAndApproach(index, forest, villagerPos, workstation, SEARCH_RADIUS);
+    }
+
+    @Benchmark
+    public void getObstructingLogOrLeaf(Blackhole bh) {
+        for (BlockPos target : raycastTargets) {
+            bh.consume(LogSearch.getObstructingLogOrLeaf(forest, eyePos, target));
+        }
+    }
+
+    @Benchmark
+    public void planPillarAscent(Blackhole bh) {
+        for (BlockPos pos : pillarPositions) {
+            bh.consume(PillarPlan.create(index, pos, null));
+        }
+    }
+}
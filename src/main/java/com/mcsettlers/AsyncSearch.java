@@ -0,0 +1,94 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.SectionSnapshot;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs woodcutter target searches on a small worker pool against section snapshots.
+// Results are picked up on a later server tick and must be validated against the live world.
+public class AsyncSearch {
+    private static final Map<VillagerEntity, CompletableFuture<BlockPos[]>> PENDING = new IdentityHashMap<>();
+    private static ThreadPoolExecutor executor;
+
+    public static void register() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            if (SettlerConfig.ASYNC_SEARCH) {
+                executor = createExecutor();
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            PENDING.clear();
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                cancel(villager);
+            }
+        });
+    }
+
+    // Snapshots the sections around the villager and queues the search. Returns false if
+    // the pool is saturated, the villager should try again later.
+    public static boolean submit(VillagerEntity villager, ServerWorld world, BlockPos villagerPos,
+            BlockPos workstation, int radius) {
+        if (executor == null) {
+            return false;
+        }
+        // The scan covers 9 blocks around the villager, plus one for the approach block
+        SectionSnapshot snapshot = SectionSnapshot.capture(world, villagerPos, 10);
+        try {
+            PENDING.put(villager, CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                BlockPos[] found = LogSearch.findNearbyLogAndApproach(snapshot, villagerPos, workstation, radius);
+                SettlerMetrics.recordOperation(SettlerMetrics.Operation.SEARCH, start);
+                return found;
+            }, executor));
+            SettlerMetrics.SEARCHES_STARTED.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // The villager's search, or null if it has none
+    public static CompletableFuture<BlockPos[]> get(VillagerEntity villager) {
+        return PENDING.get(villager);
+    }
+
+    public static void cancel(VillagerEntity villager) {
+        CompletableFuture<BlockPos[]> search = PENDING.remove(villager);
+        if (search != null) {
+            search.cancel(false);
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                SettlerConfig.SEARCH_THREADS, SettlerConfig.SEARCH_THREADS,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(SettlerConfig.SEARCH_QUEUE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "MCSettlers Search #" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+
+// Flags of every block state by raw state id, so settler scans test a state with one
+// state id lookup (an identity hash map) and an array read instead of several tag
+// lookups. Rebuilt whenever tags are (re)loaded.
+public class BlockClassifier {
+    public static final int LOG = 1;
+    public static final int LEAVES = 1 << 1;
+    public static final int AIR = 1 << 2;
+    public static final int REPLACEABLE = 1 << 3;
+    // Solid at an arbitrary position, blocks whose shape depends on neighbours may differ in the world
+    public static final int SOLID = 1 << 4;
+
+    public static final int TREE = LOG | LEAVES;
+
+    // Replaced as a whole so worker threads always see a complete table
+    private static volatile byte[] flags = new byte[0];
+
+    public static void register() {
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> rebuild());
+    }
+
+    public static void rebuild() {
+        byte[] table = new byte[Block.STATE_IDS.size()];
+        for (BlockState state : Block.STATE_IDS) {
+            table[Block.STATE_IDS.getRawId(state)] = (byte) classify(state);
+        }
+        flags = table;
+    }
+
+    public static int getFlags(BlockState state) {
+        byte[] table = flags;
+        int id = Block.STATE_IDS.getRawId(state);
+        // States not in the table yet (before the first tag load) are classified directly
+        return id >= 0 && id < table.length ? table[id] : classify(state);
+    }
+
+    public static boolean is(BlockState state, int mask) {
+        return (getFlags(state) & mask) != 0;
+    }
+
+    public static boolean isLog(BlockState state) {
+        return is(state, LOG);
+    }
+
+    public static boolean isLeaves(BlockState state) {
+        return is(state, LEAVES);
+    }
+
+    public static boolean isTree(BlockState state) {
+        return is(state, TREE);
+    }
+
+    public static boolean isAir(BlockState state) {
+        return is(state, AIR);
+    }
+
+    public static boolean isReplaceable(BlockState state) {
+        return is(state, REPLACEABLE);
+    }
+
+    public static boolean isSolid(BlockState state) {
+        return is(state, SOLID);
+    }
+
+    private static int classify(BlockState state) {
+        int result = 0;
+        if (state.isIn(BlockTags.LOGS)) {
+            result |= LOG;
+        }
+        if (state.isIn(BlockTags.LEAVES)) {
+            result |= LEAVES;
+        }
+        if (state.isAir()) {
+            result |= AIR;
+        }
+        if (state.isReplaceable()) {
+            result |= REPLACEABLE;
+        }
+        if (state.isSolidBlock(EmptyBlockView.INSTANCE, BlockPos.ORIGIN)) {
+            result |= SOLID;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,299 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.LoadedBlockView;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-world board of the trees woodcutters are felling. Idle woodcutters post a request
+// instead of searching on their own; requests are answered in batches every
+// SettlerConfig.JOB_BOARD_INTERVAL ticks with one candidate scan per workstation. Each
+// tree is leased to one villager, so two never walk to the same trunk, and the lease is
+// dropped when the tree is done, the villager is gone or it stops renewing it. Blocks a
+// villager gave up on are not offered to it again for SettlerConfig.LEASE_TICKS.
+public class FellingJobBoard {
+    public enum Result {
+        // Not answered yet, ask again next tick
+        PENDING,
+        // A tree was leased and set as the villager's FellingPlan
+        ASSIGNED,
+        // Nothing free near the workstation
+        NONE,
+        // There is no request for this villager, post a new one
+        LOST
+    }
+
+    private static final Map<ServerWorld, FellingJobBoard> BOARDS = new IdentityHashMap<>();
+
+    private static class Lease {
+        private final LongArrayList blocks = new LongArrayList();
+        private long expires;
+    }
+
+    private final Map<VillagerEntity, Lease> leases = new IdentityHashMap<>();
+    // Every block of a leased tree -> the villager holding it
+    private final Long2ObjectOpenHashMap<VillagerEntity> leasedBlocks = new Long2ObjectOpenHashMap<>();
+    // Waiting villagers -> their workstation, in the order they asked
+    private final Map<VillagerEntity, BlockPos> requests = new LinkedHashMap<>();
+    // Answered requests not picked up yet, null when nothing was found
+    private final Map<VillagerEntity, FellingPlan> results = new IdentityHashMap<>();
+    // Villager -> blocks it could not reach -> tick they may be offered to it again
+    private final Map<VillagerEntity, Long2LongOpenHashMap> givenUp = new IdentityHashMap<>();
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            for (ServerWorld world : server.getWorlds()) {
+                FellingJobBoard board = BOARDS.get(world);
+                if (board != null && world.getTime() % SettlerConfig.JOB_BOARD_INTERVAL == 0) {
+                    board.assign(world);
+                }
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            FellingJobBoard board = BOARDS.get(world);
+            if (board != null && entity instanceof VillagerEntity villager) {
+                board.cancelRequest(villager);
+                board.releaseLease(villager);
+                board.givenUp.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> BOARDS.clear());
+    }
+
+    private static FellingJobBoard get(ServerWorld world) {
+        return BOARDS.computeIfAbsent(world, w -> new FellingJobBoard());
+    }
+
+    // Ask for a tree near the workstation, answered by poll within a few ticks
+    public static void request(ServerWorld world, VillagerEntity villager, BlockPos workstation) {
+        FellingJobBoard board = get(world);
+        board.results.remove(villager);
+        board.requests.put(villager, workstation);
+    }
+
+    public static Result poll(ServerWorld world, VillagerEntity villager) {
+        FellingJobBoard board = get(world);
+        if (board.results.containsKey(villager)) {
+            FellingPlan plan = board.results.remove(villager);
+            if (plan == null) {
+                return Result.NONE;
+            }
+            FellingPlans.set(villager, plan);
+            return Result.ASSIGNED;
+        }
+        return board.requests.containsKey(villager) ? Result.PENDING : Result.LOST;
+    }
+
+    public static void cancel(ServerWorld world, VillagerEntity villager) {
+        FellingJobBoard board = BOARDS.get(world);
+        if (board != null) {
+            board.cancelRequest(villager);
+        }
+    }
+
+    // Whether the block belongs to a tree someone else is felling
+    public static boolean isLeasedByOther(ServerWorld world, VillagerEntity villager, BlockPos pos) {
+        FellingJobBoard board = BOARDS.get(world);
+        if (board == null) {
+            return false;
+        }
+        VillagerEntity holder = board.leasedBlocks.get(pos.asLong());
+        return holder != null && holder != villager;
+    }
+
+    // Take a tree planned outside the board (resumed or coarse), replacing any earlier lease.
+    // Blocks shared with a tree someone else holds stay theirs.
+    public static void lease(ServerWorld world, VillagerEntity villager, FellingPlan plan) {
+        get(world).addLease(villager, plan, world.getTime());
+    }
+
+    // Keep the lease alive while the villager makes progress on the tree
+    public static void renew(ServerWorld world, VillagerEntity villager) {
+        FellingJobBoard board = BOARDS.get(world);
+        if (board != null) {
+            Lease lease = board.leases.get(villager);
+            if (lease != null) {
+                lease.expires = world.getTime() + SettlerConfig.LEASE_TICKS;
+            }
+        }
+    }
+
+    public static void release(ServerWorld world, VillagerEntity villager) {
+        FellingJobBoard board = BOARDS.get(world);
+        if (board != null) {
+            board.releaseLease(villager);
+        }
+    }
+
+    // Release the villager's tree, and keep the blocks it could not reach away from it for a while
+    public static void giveUp(ServerWorld world, VillagerEntity villager, LongArrayList blocks) {
+        FellingJobBoard board = get(world);
+        board.releaseLease(villager);
+        if (blocks.isEmpty()) {
+            return;
+        }
+        long now = world.getTime();
+        Long2LongOpenHashMap failed = board.givenUp.computeIfAbsent(villager, v -> new Long2LongOpenHashMap());
+        failed.long2LongEntrySet().removeIf(entry -> entry.getLongValue() <= now);
+        for (int i = 0; i < blocks.size(); i++) {
+            failed.put(blocks.getLong(i), now + SettlerConfig.LEASE_TICKS);
+        }
+    }
+
+    public static int countLeases() {
+        int count = 0;
+        for (FellingJobBoard board : BOARDS.values()) {
+            count += board.leases.size();
+        }
+        return count;
+    }
+
+    private void cancelRequest(VillagerEntity villager) {
+        requests.remove(villager);
+        results.remove(villager);
+    }
+
+    private void addLease(VillagerEntity villager, FellingPlan plan, long now) {
+        releaseLease(villager);
+        Lease lease = new Lease();
+        lease.expires = now + SettlerConfig.LEASE_TICKS;
+        for (long packed : plan.getRemaining()) {
+            if (leasedBlocks.putIfAbsent(packed, villager) == null) {
+                lease.blocks.add(packed);
+            }
+        }
+        leases.put(villager, lease);
+    }
+
+    private void releaseLease(VillagerEntity villager) {
+        Lease lease = leases.remove(villager);
+        if (lease != null) {
+            unmark(lease);
+        }
+    }
+
+    private void unmark(Lease lease) {
+        for (int i = 0; i < lease.blocks.size(); i++) {
+            leasedBlocks.remove(lease.blocks.getLong(i));
+        }
+    }
+
+    private void assign(ServerWorld world) {
+        long now = world.getTime();
+        // Dead or stuck villagers stop renewing, their trees go back on the board
+        Iterator<Map.Entry<VillagerEntity, Lease>> it = leases.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<VillagerEntity, Lease> entry = it.next();
+            if (entry.getKey().isRemoved() || now > entry.getValue().expires) {
+                unmark(entry.getValue());
+                it.remove();
+            }
+        }
+        givenUp.keySet().removeIf(VillagerEntity::isRemoved);
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        // Villagers sharing a workstation share one scan
+        Long2ObjectLinkedOpenHashMap<List<VillagerEntity>> byWorkstation = new Long2ObjectLinkedOpenHashMap<>();
+        for (Map.Entry<VillagerEntity, BlockPos> entry : requests.entrySet()) {
+            long key = entry.getValue().asLong();
+            List<VillagerEntity> group = byWorkstation.get(key);
+            if (group == null) {
+                group = new ArrayList<>();
+                byWorkstation.put(key, group);
+            }
+            group.add(entry.getKey());
+        }
+        requests.clear();
+
+        TreeIndex index = TreeIndex.get(world);
+        LoadedBlockView view = new LoadedBlockView(world);
+        for (Long2ObjectMap.Entry<List<VillagerEntity>> entry : byWorkstation.long2ObjectEntrySet()) {
+            BlockPos workstation = BlockPos.fromLong(entry.getLongKey());
+            SettlerMetrics.SEARCHES_STARTED.increment();
+            long start = System.nanoTime();
+            LongArrayList candidates = index.nearestLogs(workstation, WoodcutterBrain.SEARCH_RADIUS,
+                    packed -> !leasedBlocks.containsKey(packed));
+            // Logs of trees no one can get at
+            LongOpenHashSet rejected = new LongOpenHashSet();
+            for (VillagerEntity villager : entry.getValue()) {
+                results.put(villager, assignNearest(index, view, villager, workstation, candidates, rejected, now));
+            }
+            SettlerMetrics.recordOperation(SettlerMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    // Lease the free tree with the log nearest the villager whose first block can be worked
+    // from somewhere. Logs of trees leased earlier in the batch are dropped from the
+    // candidates as they are met, logs this villager gave up on are passed over.
+    private FellingPlan assignNearest(TreeIndex index, LoadedBlockView view, VillagerEntity villager,
+            BlockPos workstation, LongArrayList candidates, LongOpenHashSet rejected, long now) {
+        BlockPos villagerPos = villager.getBlockPos();
+        int vx = villagerPos.getX(), vy = villagerPos.getY(), vz = villagerPos.getZ();
+        Long2LongOpenHashMap failed = givenUp.get(villager);
+        while (!candidates.isEmpty()) {
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                long packed = candidates.getLong(i);
+                if (rejected.contains(packed) || failed != null && failed.get(packed) > now) {
+                    continue;
+                }
+                if (leasedBlocks.containsKey(packed)) {
+                    removeAt(candidates, i);
+                    if (best == candidates.size()) {
+                        best = i; // the best one was swapped into this slot
+                    }
+                    continue;
+                }
+                int distance = TreeIndex.squaredDistance(packed, vx, vy, vz);
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            BlockPos log = BlockPos.fromLong(candidates.getLong(best));
+            removeAt(candidates, best);
+            FellingPlan plan = TreeDetector.detect(index, log, workstation, WoodcutterBrain.SEARCH_RADIUS);
+            if (plan == null || plan.isDone()) {
+                continue;
+            }
+            BlockPos first = plan.next(view);
+            if (first != null && LogSearch.checkTargetLogForAccess(view, first) != null) {
+                addLease(villager, plan, now);
+                return plan;
+            }
+            // Walled in, don't plan the same tree again from its other logs
+            for (long packed : plan.getRemaining()) {
+                rejected.add(packed);
+            }
+        }
+        return null;
+    }
+
+    private static void removeAt(LongArrayList list, int i) {
+        int last = list.size() - 1;
+        list.set(i, list.getLong(last));
+        list.removeLong(last);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+import java.util.Arrays;
+
+// Ordered blocks to fell for one tree, built once by TreeDetector. The villager walks the
+// entries in order and only revalidates the one it is about to work on.
+public class FellingPlan {
+    private final long[] entries;
+    private final int baseY;
+    private final int topY;
+    private int cursor = 0;
+    // Entries given up on, as opposed to ones that were felled or disappeared
+    private final LongArrayList skipped = new LongArrayList();
+
+    FellingPlan(long[] entries, int baseY, int topY) {
+        this.entries = entries;
+        this.baseY = baseY;
+        this.topY = topY;
+    }
+
+    // Plan of just the one block, for trees the index cannot flood fill
+    static FellingPlan single(BlockPos pos) {
+        return new FellingPlan(new long[] { pos.asLong() }, pos.getY(), pos.getY());
+    }
+
+    // Next entry that is still a log or leaf, skipping ones that are gone. Null once done.
+    public BlockPos next(BlockView world) {
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        while (cursor < entries.length) {
+            pos.set(entries[cursor]);
+            BlockState state = SettlerMetrics.getBlockState(world, pos);
+            if (BlockClassifier.isTree(state)) {
+                return pos.toImmutable();
+            }
+            cursor++;
+        }
+        return null;
+    }
+
+    // Entries not worked through yet, including ones that may be gone by now
+    public long[] getRemaining() {
+        return Arrays.copyOfRange(entries, Math.min(cursor, entries.length), entries.length);
+    }
+
+    // Give up on the current entry, e.g. because it cannot be reached
+    public void skip() {
+        if (cursor < entries.length) {
+            skipped.add(entries[cursor]);
+        }
+        cursor++;
+    }
+
+    // Done with the current entry, e.g. because it was felled
+    public void advance() {
+        cursor++;
+    }
+
+    public LongArrayList getSkipped() {
+        return skipped;
+    }
+
+    public boolean isDone() {
+        return cursor >= entries.length;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public int getBaseY() {
+        return baseY;
+    }
+
+    public int getTopY() {
+        return topY;
+    }
+}
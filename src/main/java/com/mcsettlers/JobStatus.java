@@ -0,0 +1,68 @@
+package com.mcsettlers;
+
+import java.util.EnumSet;
+
+// Woodcutter job states and the transitions allowed between them. WoodcutterBrain
+// refuses any status change the table does not list.
+public enum JobStatus {
+    IDLE("idle", false),
+    SEARCHING("searching", false),
+    WALKING("walking", false),
+    BREAKING("breaking", true),
+    PILLARING("pillaring", true),
+    STOPPING_PILLARING("stopping_pillaring", true),
+    NO_WORK("no_work", false);
+
+    private static final JobStatus[] VALUES = values();
+
+    static {
+        IDLE.allow(SEARCHING, WALKING, NO_WORK);
+        // Off-thread searches go back to idle when their result is stale
+        SEARCHING.allow(WALKING, NO_WORK, IDLE);
+        // Walking villagers go back to idle when they switch to the coarse simulation
+        WALKING.allow(BREAKING, PILLARING, NO_WORK, IDLE);
+        BREAKING.allow(IDLE, PILLARING, STOPPING_PILLARING);
+        // Pillaring picks a log above and starts breaking it, or starts another pillar
+        PILLARING.allow(BREAKING, PILLARING, STOPPING_PILLARING, NO_WORK);
+        STOPPING_PILLARING.allow(BREAKING, IDLE, NO_WORK);
+        NO_WORK.allow(IDLE);
+    }
+
+    // Transition counts indexed by [from.ordinal() + 1][to.ordinal()], row 0 is "no status yet"
+    private static final long[][] TRANSITION_COUNTS = new long[VALUES.length + 1][VALUES.length];
+
+    private final String label;
+    private final boolean aiDisabled;
+    private EnumSet<JobStatus> next;
+
+    JobStatus(String label, boolean aiDisabled) {
+        this.label = label;
+        this.aiDisabled = aiDisabled;
+    }
+
+    private void allow(JobStatus first, JobStatus... rest) {
+        next = EnumSet.of(first, rest);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Breaking and pillaring freeze the villager in place
+    public boolean isAiDisabled() {
+        return aiDisabled;
+    }
+
+    public boolean canTransitionTo(JobStatus status) {
+        return next.contains(status);
+    }
+
+    static void recordTransition(JobStatus from, JobStatus to) {
+        TRANSITION_COUNTS[from == null ? 0 : from.ordinal() + 1][to.ordinal()]++;
+    }
+
+    // Number of transitions since startup, from null meaning freshly loaded villagers
+    public static long getTransitionCount(JobStatus from, JobStatus to) {
+        return TRANSITION_COUNTS[from == null ? 0 : from.ordinal() + 1][to.ordinal()];
+    }
+}
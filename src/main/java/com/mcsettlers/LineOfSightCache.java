@@ -0,0 +1,140 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Last obstruction check of each woodcutter, keyed by (eye block, target). Sections are
+// stamped whenever a tree block in them changes, and an entry is stale once any section
+// between its eye and target has a newer stamp. Every PRUNE_INTERVAL ticks, entries not
+// renewed since the last prune are dropped, and so are stamps no newer than the oldest
+// remaining entry, as they can no longer make anything stale.
+public class LineOfSightCache {
+    private static final int PRUNE_INTERVAL = 1200;
+
+    private static final Map<ServerWorld, Long2LongOpenHashMap> SECTION_STAMPS = new IdentityHashMap<>();
+    private static final Map<VillagerEntity, Entry> ENTRIES = new IdentityHashMap<>();
+
+    private static long stamp = 0;
+    // Stamp at the last prune
+    private static long prunedAt = 0;
+
+    private static class Entry {
+        private long eye;
+        private long target;
+        private long obstruction;
+        private boolean obstructed;
+        private long stamp;
+    }
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % PRUNE_INTERVAL == 0) {
+                prune();
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                ENTRIES.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            SECTION_STAMPS.clear();
+            ENTRIES.clear();
+        });
+    }
+
+    // Called from ServerWorldMixin. Only logs and leaves can obstruct, so other changes are ignored.
+    public static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (!BlockClassifier.isTree(oldState) && !BlockClassifier.isTree(newState)) {
+            return;
+        }
+        // New entries start at the current stamp, so with none around there is nothing to mark
+        if (ENTRIES.isEmpty()) {
+            return;
+        }
+        Long2LongOpenHashMap stamps = SECTION_STAMPS.get(world);
+        if (stamps == null) {
+            stamps = new Long2LongOpenHashMap();
+            SECTION_STAMPS.put(world, stamps);
+        }
+        stamps.put(ChunkSectionPos.fromBlockPos(pos.asLong()), ++stamp);
+    }
+
+    public static BlockPos getObstructingLogOrLeaf(VillagerEntity villager, ServerWorld world, BlockPos target) {
+        double eyeX = villager.getX();
+        double eyeY = villager.getY() + villager.getStandingEyeHeight();
+        double eyeZ = villager.getZ();
+        long eye = BlockPos.asLong(MathHelper.floor(eyeX), MathHelper.floor(eyeY), MathHelper.floor(eyeZ));
+        long targetPacked = target.asLong();
+
+        Entry entry = ENTRIES.get(villager);
+        if (entry != null && entry.eye == eye && entry.target == targetPacked && isFresh(world, entry)) {
+            return entry.obstructed ? BlockPos.fromLong(entry.obstruction) : null;
+        }
+
+        BlockPos obstruction = LogSearch.getObstructingLogOrLeaf(world, eyeX, eyeY, eyeZ, target);
+        if (entry == null) {
+            entry = new Entry();
+            ENTRIES.put(villager, entry);
+        }
+        entry.eye = eye;
+        entry.target = targetPacked;
+        entry.obstructed = obstruction != null;
+        entry.obstruction = obstruction != null ? obstruction.asLong() : 0;
+        entry.stamp = stamp;
+        return obstruction;
+    }
+
+    private static void prune() {
+        // Entries not checked since the last prune would pin old stamps, they are cheap to redo
+        ENTRIES.values().removeIf(entry -> entry.stamp < prunedAt);
+        prunedAt = stamp;
+        if (ENTRIES.isEmpty()) {
+            SECTION_STAMPS.clear();
+            return;
+        }
+        long oldest = Long.MAX_VALUE;
+        for (Entry entry : ENTRIES.values()) {
+            oldest = Math.min(oldest, entry.stamp);
+        }
+        long cutoff = oldest;
+        for (Long2LongOpenHashMap stamps : SECTION_STAMPS.values()) {
+            stamps.long2LongEntrySet().removeIf(e -> e.getLongValue() <= cutoff);
+        }
+    }
+
+    private static boolean isFresh(ServerWorld world, Entry entry) {
+        Long2LongOpenHashMap stamps = SECTION_STAMPS.get(world);
+        if (stamps == null) {
+            return true;
+        }
+        int minX = Math.min(BlockPos.unpackLongX(entry.eye), BlockPos.unpackLongX(entry.target)) >> 4;
+        int maxX = Math.max(BlockPos.unpackLongX(entry.eye), BlockPos.unpackLongX(entry.target)) >> 4;
+        int minY = Math.min(BlockPos.unpackLongY(entry.eye), BlockPos.unpackLongY(entry.target)) >> 4;
+        int maxY = Math.max(BlockPos.unpackLongY(entry.eye), BlockPos.unpackLongY(entry.target)) >> 4;
+        int minZ = Math.min(BlockPos.unpackLongZ(entry.eye), BlockPos.unpackLongZ(entry.target)) >> 4;
+        int maxZ = Math.max(BlockPos.unpackLongZ(entry.eye), BlockPos.unpackLongZ(entry.target)) >> 4;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    // Missing sections read as 0, older than any entry
+                    if (stamps.get(ChunkSectionPos.asLong(sx, sy, sz)) > entry.stamp) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,214 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.PalettedBlockView;
+import com.mcsettlers.utils.RadiusGenerator;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.BlockView;
+
+import java.util.function.Predicate;
+
+// Target search that only reads through a BlockView, so it can run against a
+// SectionSnapshot off the server thread as well as against the live world. Live
+// searches read through a LoadedBlockView so they never load chunks.
+public class LogSearch {
+    // Air block next to the log or leaf that the villager can work from, or null
+    public static BlockPos checkTargetLogForAccess(BlockView view, BlockPos targetLog) {
+        long start = System.nanoTime();
+        BlockPos approach = findApproach(view, targetLog);
+        SettlerMetrics.recordOperation(SettlerMetrics.Operation.ACCESS_CHECK, start);
+        return approach;
+    }
+
+    private static BlockPos findApproach(BlockView view, BlockPos targetLog) {
+        // Accessible when it is still a log or leaf and one of its neighbours is air
+        if (BlockClassifier.isTree(SettlerMetrics.getBlockState(view, targetLog))) {
+            for (Direction dir : Direction.values()) {
+                BlockPos adj = targetLog.offset(dir);
+                if (BlockClassifier.isAir(SettlerMetrics.getBlockState(view, adj))) {
+                    return adj;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Nearest accessible log (or leaf attached to a log) within 9 blocks of the villager and
+    // radius of the workstation, as { log, approach }, or null
+    public static BlockPos[] findNearbyLogAndApproach(BlockView view, BlockPos villagerPos, BlockPos workstation,
+            int radius) {
+        int r2 = radius * radius;
+        Predicate<BlockPos> treeSection = treeSections(view, villagerPos, 9);
+        if (treeSection == null) {
+            return null; // no section in range has a log or leaf in its palette
+        }
+        Iterable<BlockPos> nearbyLogs = RadiusGenerator.radiusCoordinates(villagerPos, 9, pos ->
+                treeSection.test(pos) && TreeIndex.isLog(SettlerMetrics.getBlockState(view, pos))
+                        && workstation.getSquaredDistance(pos) <= r2);
+        boolean anyLogs = false;
+        for (BlockPos pos : nearbyLogs) {
+            anyLogs = true;
+            BlockPos approach = checkTargetLogForAccess(view, pos);
+            if (approach != null) {
+                return new BlockPos[] { pos.toImmutable(), approach };
+            }
+        }
+        if (!anyLogs) {
+            return null;
+        }
+
+        Iterable<BlockPos> nearbyLeaves = RadiusGenerator.radiusCoordinates(villagerPos, 9, pos ->
+                treeSection.test(pos) && TreeIndex.isLeaves(SettlerMetrics.getBlockState(view, pos))
+                        && workstation.getSquaredDistance(pos) <= r2);
+        for (BlockPos pos : nearbyLeaves) {
+            if (!hasLogNeighbor(view, pos)) {
+                continue; // Skip leaves not attached to a log
+            }
+            BlockPos approach = checkTargetLogForAccess(view, pos);
+            if (approach != null) {
+                return new BlockPos[] { pos.toImmutable(), approach };
+            }
+        }
+        return null;
+    }
+
+    // Same as above, but candidates come from the TreeIndex so only their neighbours are read
+    public static BlockPos[] findNearbyLogAndApproach(TreeIndex index, BlockView view, BlockPos villagerPos,
+            BlockPos workstation, int radius) {
+        int r2 = radius * radius;
+        int wx = workstation.getX(), wy = workstation.getY(), wz = workstation.getZ();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        // Check indexed logs nearest the villager first, limited to the workstation radius
+        LongIterator nearbyLogs = index.iterateNearestLogs(villagerPos, 9,
+                packed -> TreeIndex.squaredDistance(packed, wx, wy, wz) <= r2);
+        boolean anyLogs = false;
+        while (nearbyLogs.hasNext()) {
+            anyLogs = true;
+            pos.set(nearbyLogs.nextLong());
+            BlockPos approach = checkTargetLogForAccess(view, pos);
+            if (approach != null) {
+                return new BlockPos[] { pos.toImmutable(), approach };
+            }
+        }
+
+        // If no logs in range, just give up
+        if (!anyLogs) {
+            return null;
+        }
+
+        // Check all coordinates for leaves that are attached to a log
+        LongIterator nearbyLeaves = index.iterateNearestLeaves(villagerPos, 9,
+                packed -> TreeIndex.squaredDistance(packed, wx, wy, wz) <= r2);
+        while (nearbyLeaves.hasNext()) {
+            pos.set(nearbyLeaves.nextLong());
+            // Check if the leaf block is attached to a log
+            boolean hasLogNeighbor = false;
+            for (Direction dir : Direction.values()) {
+                if (index.isLog(pos.offset(dir))) {
+                    hasLogNeighbor = true;
+                    break; // Found a log neighbor, no need to check further
+                }
+            }
+            if (!hasLogNeighbor) {
+                continue; // Skip leaves not attached to a log
+            }
+            BlockPos approach = checkTargetLogForAccess(view, pos);
+            if (approach != null) {
+                return new BlockPos[] { pos.toImmutable(), approach };
+            }
+        }
+
+        // If no logs or leaves found, return null
+        return null;
+    }
+
+    public static BlockPos getObstructingLogOrLeaf(BlockView view, Vec3d eyePos, BlockPos target) {
+        return getObstructingLogOrLeaf(view, eyePos.x, eyePos.y, eyePos.z, target);
+    }
+
+    // Walk every block the ray from the eye to the target center passes through
+    // (Amanatides-Woo voxel traversal) and return the first log/leaf in the way, excluding
+    // the target. Only allocates the returned position.
+    public static BlockPos getObstructingLogOrLeaf(BlockView view, double eyeX, double eyeY, double eyeZ,
+            BlockPos target) {
+        int x = MathHelper.floor(eyeX), y = MathHelper.floor(eyeY), z = MathHelper.floor(eyeZ);
+        int tx = target.getX(), ty = target.getY(), tz = target.getZ();
+        double dx = tx + 0.5 - eyeX, dy = ty + 0.5 - eyeY, dz = tz + 0.5 - eyeZ;
+
+        // Ray parameter t runs from 0 at the eye to 1 at the target center
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double deltaX = stepX != 0 ? Math.abs(1 / dx) : Double.POSITIVE_INFINITY;
+        double deltaY = stepY != 0 ? Math.abs(1 / dy) : Double.POSITIVE_INFINITY;
+        double deltaZ = stepZ != 0 ? Math.abs(1 / dz) : Double.POSITIVE_INFINITY;
+        double maxX = stepX > 0 ? (x + 1 - eyeX) / dx : stepX < 0 ? (x - eyeX) / dx : Double.POSITIVE_INFINITY;
+        double maxY = stepY > 0 ? (y + 1 - eyeY) / dy : stepY < 0 ? (y - eyeY) / dy : Double.POSITIVE_INFINITY;
+        double maxZ = stepZ > 0 ? (z + 1 - eyeZ) / dz : stepZ < 0 ? (z - eyeZ) / dz : Double.POSITIVE_INFINITY;
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        // Each step crosses one face, so the target is at most this many blocks away
+        int steps = Math.abs(tx - x) + Math.abs(ty - y) + Math.abs(tz - z);
+        for (int i = 0; i < steps; i++) {
+            if (BlockClassifier.isTree(SettlerMetrics.getBlockState(view, pos.set(x, y, z)))) {
+                return pos.toImmutable();
+            }
+            if (maxX < maxY && maxX < maxZ) {
+                x += stepX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                y += stepY;
+                maxY += deltaY;
+            } else {
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+            if (x == tx && y == ty && z == tz) {
+                break; // skip the target itself
+            }
+        }
+        return null;
+    }
+
+    // Which sections within the radius of center may hold a log or leaf, from one palette
+    // check each, so the sphere walk skips sky and solid ground without reading it. Null
+    // when none do. Views without palettes cannot tell and accept every position.
+    private static Predicate<BlockPos> treeSections(BlockView view, BlockPos center, int radius) {
+        if (!(view instanceof PalettedBlockView paletted)) {
+            return pos -> true;
+        }
+        int minX = (center.getX() - radius) >> 4, maxX = (center.getX() + radius) >> 4;
+        int minY = (center.getY() - radius) >> 4, maxY = (center.getY() + radius) >> 4;
+        int minZ = (center.getZ() - radius) >> 4, maxZ = (center.getZ() + radius) >> 4;
+        int sizeY = maxY - minY + 1, sizeZ = maxZ - minZ + 1;
+        boolean[] mask = new boolean[(maxX - minX + 1) * sizeY * sizeZ];
+        boolean any = false;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    boolean hasTree = paletted.sectionHasAny(sx, sy, sz, BlockClassifier::isTree);
+                    mask[((sx - minX) * sizeY + sy - minY) * sizeZ + sz - minZ] = hasTree;
+                    any |= hasTree;
+                }
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        return pos -> mask[(((pos.getX() >> 4) - minX) * sizeY + (pos.getY() >> 4) - minY) * sizeZ
+                + (pos.getZ() >> 4) - minZ];
+    }
+
+    private static boolean hasLogNeighbor(BlockView view, BlockPos pos) {
+        for (Direction dir : Direction.values()) {
+            if (TreeIndex.isLog(SettlerMetrics.getBlockState(view, pos.offset(dir)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
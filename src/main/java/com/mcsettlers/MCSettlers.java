@@ -2,7 +2,6 @@ package com.mcsettlers;
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
-import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.village.VillagerProfession;
 
@@ -17,16 +16,31 @@ public class MCSettlers implements ModInitializer {
 	public void onInitialize() {
 		ModPOIs.register();
 		ModProfessions.register();
-		ModMemoryModules.register();
+		BlockClassifier.register();
+		TreeIndex.register();
+		SettlerRegistry.register();
+		SettlerStateStore.register();
+		SettlerWorldState.register();
+		SettlerScheduler.register();
+		SettlerMutations.register();
+		SettlerHarvest.register();
+		SettlerLod.register();
+		AsyncSearch.register();
+		FellingPlans.register();
+		FellingJobBoard.register();
+		PillarPlans.register();
+		LineOfSightCache.register();
+		SurfaceMaps.register();
+		RouteCache.register();
+		SettlerTrace.register();
+		SettlerMetrics.register();
+		SettlerStatusSync.register();
+		SettlerCommands.register();
 
 		ServerTickEvents.END_SERVER_TICK.register(server -> {
 			for (ServerWorld world : server.getWorlds()) {
-				// Use getEntitiesByType for all loaded villagers
-				for (VillagerEntity villager : world.getEntitiesByType(net.minecraft.entity.EntityType.VILLAGER, v -> true)) {
-					if (villager.getVillagerData().profession().matchesKey(VillagerProfession.FLETCHER)) {
-						WoodcutterBrain.tick(villager, world);
-					}
-				}
+				// Only the registered woodcutters, no entity scan
+				SettlerScheduler.tick(world, SettlerRegistry.getSettlers(world, VillagerProfession.FLETCHER));
 			}
 		});
 
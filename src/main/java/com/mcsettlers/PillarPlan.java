@@ -0,0 +1,96 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+import java.util.Arrays;
+
+// Break targets of one pillar ascent, each tagged with the lowest pillar height it can be
+// reached from. Built once when the villager starts pillaring; every step afterwards only
+// checks that the next target is still there.
+public class PillarPlan {
+    // Villagers on the pillar break blocks up to this far away, as the old sphere scans did
+    public static final int REACH = 4;
+    // Highest block above the villager the plan looks at
+    private static final int MAX_HEIGHT = 32;
+
+    // Sorted by level, then distance from the column: level << 32 | index into targets
+    private final long[] order;
+    private final long[] targets;
+    // Feet height of the villager when the plan was made, levels count up from here
+    private final int baseY;
+    private int cursor = 0;
+
+    private PillarPlan(long[] order, long[] targets, int baseY) {
+        this.order = order;
+        this.targets = targets;
+        this.baseY = baseY;
+    }
+
+    // Targets come from the tree being felled if there is one, otherwise from the logs
+    // indexed around the column. Leaves only count when they are in the column itself.
+    public static PillarPlan create(TreeIndex index, BlockPos villagerPos, FellingPlan tree) {
+        int vx = villagerPos.getX(), vy = villagerPos.getY(), vz = villagerPos.getZ();
+        LongArrayList candidates = new LongArrayList();
+        if (tree != null) {
+            for (long packed : tree.getRemaining()) {
+                if (BlockPos.unpackLongY(packed) > vy && index.isLog(BlockPos.fromLong(packed))) {
+                    candidates.add(packed);
+                }
+            }
+        } else {
+            candidates.addAll(index.nearestLogs(villagerPos.up(MAX_HEIGHT / 2), MAX_HEIGHT / 2, packed -> {
+                int dx = BlockPos.unpackLongX(packed) - vx, dz = BlockPos.unpackLongZ(packed) - vz;
+                return BlockPos.unpackLongY(packed) > vy && dx * dx + dz * dz < REACH * REACH;
+            }));
+        }
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int y = vy + 1; y <= vy + MAX_HEIGHT; y++) {
+            if (index.isLeaves(pos.set(vx, y, vz))) {
+                candidates.add(pos.asLong());
+            }
+        }
+
+        LongArrayList order = new LongArrayList();
+        LongArrayList targets = new LongArrayList();
+        for (int i = 0; i < candidates.size(); i++) {
+            long packed = candidates.getLong(i);
+            int dx = BlockPos.unpackLongX(packed) - vx, dz = BlockPos.unpackLongZ(packed) - vz;
+            int horizontal = dx * dx + dz * dz;
+            if (horizontal >= REACH * REACH) {
+                continue; // Not reachable from the column at any height
+            }
+            // Lowest feet height L with (y - L)^2 + horizontal <= REACH^2 and y > L
+            int y = BlockPos.unpackLongY(packed);
+            int level = Math.max(vy, y - (int) Math.sqrt(REACH * REACH - horizontal));
+            order.add((long) (level - vy) << 32 | (long) horizontal << 16 | targets.size());
+            targets.add(packed);
+        }
+        long[] sorted = order.toLongArray();
+        Arrays.sort(sorted);
+        return new PillarPlan(sorted, targets.toLongArray(), vy);
+    }
+
+    // Next target reachable from the given pillar height that is still a log or leaf,
+    // skipping ones that are gone. Null when the villager has to climb (or is done).
+    public BlockPos nextTarget(BlockView world, int villagerY) {
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        while (cursor < order.length && (int) (order[cursor] >>> 32) <= villagerY - baseY) {
+            pos.set(targets[(int) (order[cursor] & 0xFFFF)]);
+            if (BlockClassifier.isTree(SettlerMetrics.getBlockState(world, pos))) {
+                return pos.toImmutable();
+            }
+            cursor++;
+        }
+        return null;
+    }
+
+    public boolean isDone() {
+        return cursor >= order.length;
+    }
+
+    public int size() {
+        return targets.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// The pillar ascent each woodcutter is currently climbing
+public class PillarPlans {
+    private static final Map<VillagerEntity, PillarPlan> PLANS = new IdentityHashMap<>();
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                PLANS.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> PLANS.clear());
+    }
+
+    public static PillarPlan get(VillagerEntity villager) {
+        return PLANS.get(villager);
+    }
+
+    public static void set(VillagerEntity villager, PillarPlan plan) {
+        if (plan == null) {
+            PLANS.remove(villager);
+        } else {
+            PLANS.put(villager, plan);
+        }
+    }
+}
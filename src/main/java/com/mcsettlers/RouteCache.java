@@ -0,0 +1,254 @@
+package com.mcsettlers;
+
+import com.mcsettlers.mixin.EntityNavigationAccessor;
+import com.mcsettlers.utils.LoadedBlockView;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.ai.brain.MemoryModuleType;
+import net.minecraft.entity.ai.brain.WalkTarget;
+import net.minecraft.entity.ai.pathing.EntityNavigation;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.ai.pathing.PathNode;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.GlobalPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Paths settlers walked recently, per workstation, so the same walk between the
+// workstation and a tree does not run vanilla A* again. Routes are keyed by the coarse
+// cell the walk starts in and the exact goal, dropped as soon as a block along them
+// changes, and evicted least recently used once SettlerConfig.ROUTE_CACHE_NODES is hit.
+// MoveToTargetTaskMixin sends settler path requests through here; only walks a settler
+// brain registered with trackWalk are cached, vanilla wandering and meeting walks are not.
+public class RouteCache {
+    // Starts within the same 4x4x4 cell share a route
+    private static final int CELL_SHIFT = 2;
+
+    private static final Map<ServerWorld, RouteCache> CACHES = new IdentityHashMap<>();
+    // Walk target each settler brain set last
+    private static final Map<VillagerEntity, WalkTarget> WALKS = new IdentityHashMap<>();
+
+    private record RouteKey(long workstation, long startCell, long goal) {
+    }
+
+    private static class Route {
+        private final RouteKey key;
+        private final List<PathNode> nodes;
+        private final BlockPos target;
+        // Node positions plus the blocks under and above them; a change to any of these
+        // can make the route unwalkable
+        private final LongOpenHashSet footprint = new LongOpenHashSet();
+        private final LongOpenHashSet sections = new LongOpenHashSet();
+
+        private Route(RouteKey key, Path path) {
+            this.key = key;
+            List<PathNode> nodes = new ArrayList<>(path.getLength());
+            for (int i = 0; i < path.getLength(); i++) {
+                PathNode node = path.getNode(i);
+                nodes.add(node);
+                for (int dy = -1; dy <= 1; dy++) {
+                    long packed = BlockPos.asLong(node.x, node.y + dy, node.z);
+                    footprint.add(packed);
+                    sections.add(ChunkSectionPos.fromBlockPos(packed));
+                }
+            }
+            this.nodes = Collections.unmodifiableList(nodes);
+            this.target = path.getTarget();
+        }
+
+        // No node was filled in with a solid block; anything subtler is caught by invalidation.
+        // Doors and gates are not solid, so routes through them stay valid.
+        private boolean isValid(LoadedBlockView view) {
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+            for (PathNode node : nodes) {
+                if (BlockClassifier.isSolid(SettlerMetrics.getBlockState(view, pos.set(node.x, node.y, node.z)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Fresh Path over the shared nodes, starting at the node nearest the walker.
+        // Navigation may trim the node list, so each copy gets its own.
+        private Path copyFrom(BlockPos start) {
+            Path path = new Path(new ArrayList<>(nodes), target, true);
+            int nearest = 0;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < nodes.size(); i++) {
+                PathNode node = nodes.get(i);
+                int dx = node.x - start.getX(), dy = node.y - start.getY(), dz = node.z - start.getZ();
+                int distance = dx * dx + dy * dy + dz * dz;
+                if (distance < nearestDistance) {
+                    nearest = i;
+                    nearestDistance = distance;
+                }
+            }
+            path.setCurrentNodeIndex(nearest);
+            return path;
+        }
+    }
+
+    // Least recently used first
+    private final LinkedHashMap<RouteKey, Route> routes = new LinkedHashMap<>(16, 0.75f, true);
+    // Section key -> routes with part of their footprint in it
+    private final Long2ObjectOpenHashMap<Set<Route>> bySection = new Long2ObjectOpenHashMap<>();
+    private int nodeCount = 0;
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                WALKS.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            CACHES.clear();
+            WALKS.clear();
+        });
+    }
+
+    // Called by settler brains for the walk targets they set, the only ones worth caching
+    public static void trackWalk(VillagerEntity villager, WalkTarget walkTarget) {
+        WALKS.put(villager, walkTarget);
+    }
+
+    // Cached path for walks settlers with a workstation started themselves, otherwise
+    // (and on a miss) navigation.findPathTo as vanilla would call it
+    public static Path findPathTo(EntityNavigation navigation, MobEntity entity, WalkTarget walkTarget,
+            BlockPos target, int distance) {
+        if (!(entity instanceof VillagerEntity villager) || !(entity.getWorld() instanceof ServerWorld world)
+                || SettlerConfig.ROUTE_CACHE_NODES <= 0 || WALKS.get(villager) != walkTarget
+                || !SettlerRegistry.isSettler(villager)) {
+            return navigation.findPathTo(target, distance);
+        }
+        GlobalPos jobSite = villager.getBrain().getOptionalMemory(MemoryModuleType.JOB_SITE).orElse(null);
+        if (jobSite == null || jobSite.dimension() != world.getRegistryKey()) {
+            return navigation.findPathTo(target, distance);
+        }
+        BlockPos start = entity.getBlockPos();
+        RouteKey key = new RouteKey(jobSite.pos().asLong(), BlockPos.asLong(start.getX() >> CELL_SHIFT,
+                start.getY() >> CELL_SHIFT, start.getZ() >> CELL_SHIFT), target.asLong());
+
+        RouteCache cache = CACHES.get(world);
+        if (cache == null) {
+            cache = new RouteCache();
+            CACHES.put(world, cache);
+        }
+        Route route = cache.routes.get(key);
+        if (route != null) {
+            if (route.isValid(new LoadedBlockView(world))) {
+                SettlerMetrics.ROUTE_HITS.increment();
+                Path path = route.copyFrom(start);
+                // What findPathTo would have set, recalculatePath and stuck checks read these
+                EntityNavigationAccessor accessor = (EntityNavigationAccessor) navigation;
+                accessor.settlers$setCurrentTarget(path.getTarget());
+                accessor.settlers$setCurrentDistance(distance);
+                accessor.settlers$resetNode();
+                return path;
+            }
+            cache.remove(route);
+        }
+
+        SettlerMetrics.ROUTE_MISSES.increment();
+        long pathStart = System.nanoTime();
+        Path path = navigation.findPathTo(target, distance);
+        SettlerMetrics.recordOperation(SettlerMetrics.Operation.PATHFIND, pathStart);
+        if (path != null && path.reachesTarget() && path.getLength() > 1) {
+            cache.add(new Route(key, path));
+        }
+        return path;
+    }
+
+    // Called from ServerWorldMixin
+    public static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        RouteCache cache = CACHES.get(world);
+        if (cache == null || cache.routes.isEmpty()) {
+            return;
+        }
+        if (SurfaceMap.isFloor(oldState) == SurfaceMap.isFloor(newState)
+                && SurfaceMap.isBlocking(oldState) == SurfaceMap.isBlocking(newState)) {
+            return;
+        }
+        Set<Route> candidates = cache.bySection.get(ChunkSectionPos.fromBlockPos(pos.asLong()));
+        if (candidates == null) {
+            return;
+        }
+        long packed = pos.asLong();
+        List<Route> broken = null;
+        for (Route route : candidates) {
+            if (route.footprint.contains(packed)) {
+                if (broken == null) {
+                    broken = new ArrayList<>();
+                }
+                broken.add(route);
+            }
+        }
+        if (broken != null) {
+            for (Route route : broken) {
+                cache.remove(route);
+            }
+        }
+    }
+
+    public static int countRoutes() {
+        int count = 0;
+        for (RouteCache cache : CACHES.values()) {
+            count += cache.routes.size();
+        }
+        return count;
+    }
+
+    private void add(Route route) {
+        Route previous = routes.put(route.key, route);
+        if (previous != null) {
+            unindex(previous);
+        }
+        nodeCount += route.nodes.size();
+        for (long section : route.sections) {
+            Set<Route> set = bySection.get(section);
+            if (set == null) {
+                set = Collections.newSetFromMap(new IdentityHashMap<>());
+                bySection.put(section, set);
+            }
+            set.add(route);
+        }
+        Iterator<Route> eldest = routes.values().iterator();
+        while (nodeCount > SettlerConfig.ROUTE_CACHE_NODES && eldest.hasNext()) {
+            Route evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted);
+        }
+    }
+
+    private void remove(Route route) {
+        if (routes.remove(route.key, route)) {
+            unindex(route);
+        }
+    }
+
+    private void unindex(Route route) {
+        nodeCount -= route.nodes.size();
+        for (long section : route.sections) {
+            Set<Route> set = bySection.get(section);
+            if (set != null) {
+                set.remove(route);
+                if (set.isEmpty()) {
+                    bySection.remove(section);
+                }
+            }
+        }
+    }
+}
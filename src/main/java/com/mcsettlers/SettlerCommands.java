@@ -0,0 +1,134 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.LatencyHistogram;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// /settlers debugging commands
+public class SettlerCommands {
+    private static final int TRACE_LINES = 20;
+
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> register(dispatcher));
+    }
+
+    private static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(CommandManager.literal("settlers")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("stats")
+                        .executes(SettlerCommands::stats)
+                        .then(CommandManager.literal("reset")
+                                .executes(context -> {
+                                    SettlerMetrics.reset();
+                                    context.getSource().sendFeedback(() -> Text.literal("Settler stats reset"), true);
+                                    return 1;
+                                })))
+                .then(CommandManager.literal("trace")
+                        .executes(context -> trace(context, -1, null))
+                        .then(CommandManager.argument("villager", EntityArgumentType.entity())
+                                .executes(context -> trace(context, villagerId(context), null))
+                                .then(CommandManager.argument("category", StringArgumentType.word())
+                                        .suggests((context, builder) -> CommandSource.suggestMatching(
+                                                Arrays.stream(SettlerTrace.Category.values())
+                                                        .map(c -> c.name().toLowerCase(Locale.ROOT)),
+                                                builder))
+                                        .executes(context -> trace(context, villagerId(context),
+                                                StringArgumentType.getString(context, "category")))))));
+    }
+
+    private static int stats(CommandContext<ServerCommandSource> context) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Settlers per world:");
+        for (Map.Entry<String, Integer> entry : SettlerMetrics.getSettlerCounts().entrySet()) {
+            lines.add("  " + entry.getKey() + ": " + entry.getValue());
+        }
+        lines.add("Coarse (no player near): " + SettlerLod.countCoarse());
+        lines.add("Trees leased: " + FellingJobBoard.countLeases());
+        lines.add("Tick time per job status:");
+        for (JobStatus status : JobStatus.values()) {
+            addHistogram(lines, status.getLabel(), SettlerMetrics.getStateTimes(status));
+        }
+        lines.add("Operation time:");
+        for (SettlerMetrics.Operation operation : SettlerMetrics.Operation.values()) {
+            addHistogram(lines, operation.name().toLowerCase(Locale.ROOT), SettlerMetrics.getOperationTimes(operation));
+        }
+        lines.add("Block state reads: " + SettlerMetrics.BLOCK_STATE_READS.sum());
+        lines.add("Searches: " + SettlerMetrics.SEARCHES_STARTED.sum() + " started, "
+                + SettlerMetrics.SEARCHES_FAILED.sum() + " found nothing");
+        lines.add("Blocks broken: " + SettlerMetrics.BLOCKS_BROKEN.sum());
+        lines.add("Harvested items: " + SettlerMetrics.ITEMS_STORED.sum() + " stored, "
+                + SettlerMetrics.ITEMS_DROPPED.sum() + " dropped as overflow");
+        lines.add("Route cache: " + RouteCache.countRoutes() + " routes, " + SettlerMetrics.ROUTE_HITS.sum()
+                + " hits, " + SettlerMetrics.ROUTE_MISSES.sum() + " misses");
+        lines.add("Transitions:");
+        for (JobStatus to : JobStatus.values()) {
+            long fresh = JobStatus.getTransitionCount(null, to);
+            if (fresh > 0) {
+                lines.add("  none -> " + to.getLabel() + ": " + fresh);
+            }
+            for (JobStatus from : JobStatus.values()) {
+                long count = JobStatus.getTransitionCount(from, to);
+                if (count > 0) {
+                    lines.add("  " + from.getLabel() + " -> " + to.getLabel() + ": " + count);
+                }
+            }
+        }
+        for (String line : lines) {
+            context.getSource().sendFeedback(() -> Text.literal(line), false);
+        }
+        return 1;
+    }
+
+    private static void addHistogram(List<String> lines, String name, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        lines.add(String.format(Locale.ROOT, "  %s: n=%d mean=%dus p50<=%dus p99<=%dus max=%dus",
+                name, histogram.getCount(), histogram.getMeanNanos() / 1000,
+                histogram.getPercentileNanos(50) / 1000, histogram.getPercentileNanos(99) / 1000,
+                histogram.getMaxNanos() / 1000));
+    }
+
+    private static int villagerId(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        return EntityArgumentType.getEntity(context, "villager").getId();
+    }
+
+    private static int trace(CommandContext<ServerCommandSource> context, int entityId, String categoryName) {
+        ServerCommandSource source = context.getSource();
+        SettlerTrace.Category category = null;
+        if (categoryName != null) {
+            try {
+                category = SettlerTrace.Category.valueOf(categoryName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                source.sendError(Text.literal("Unknown trace category: " + categoryName));
+                return 0;
+            }
+            if (!SettlerTrace.isEnabled(category)) {
+                source.sendFeedback(() -> Text.literal("Tracing of " + categoryName
+                        + " is disabled (-Dmcsettlers.trace." + categoryName + "=false)"), false);
+            }
+        }
+        List<String> lines = SettlerTrace.dump(source.getWorld(), entityId, category, TRACE_LINES);
+        if (lines.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No settler events recorded"), false);
+        }
+        for (String line : lines) {
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return lines.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mcsettlers;
+
+// Tuning knobs, overridable with -Dmcsettlers.<name>=<value> on the server command line
+public class SettlerConfig {
+    // Wall time per world and tick that expensive settler work (searches, pillar checks) may use
+    public static final long SEARCH_BUDGET_NANOS =
+            (long) (Double.parseDouble(System.getProperty("mcsettlers.searchBudgetMs", "2.0")) * 1_000_000);
+
+    // Idle woodcutters search for work once every this many ticks, staggered by entity id
+    public static final int SEARCH_INTERVAL = Integer.getInteger("mcsettlers.searchInterval", 4);
+
+    // Pillaring woodcutters re-check the trunk once every this many ticks, staggered by entity id
+    public static final int PILLAR_INTERVAL = Integer.getInteger("mcsettlers.pillarInterval", 20);
+
+    // Run idle target searches on worker threads against section snapshots
+    public static final boolean ASYNC_SEARCH = Boolean.parseBoolean(System.getProperty("mcsettlers.asyncSearch", "false"));
+
+    public static final int SEARCH_THREADS = Integer.getInteger("mcsettlers.searchThreads", 2);
+
+    // Searches waiting for a worker; idle villagers retry later when it is full
+    public static final int SEARCH_QUEUE = Integer.getInteger("mcsettlers.searchQueue", 64);
+
+    // Settlers with no player this close switch to the coarse simulation, 0 disables it
+    public static final int LOD_DISTANCE = Integer.getInteger("mcsettlers.lodDistance", 64);
+
+    // Coarse settlers fell trees once every this many ticks, staggered by entity id
+    public static final int LOD_INTERVAL = Integer.getInteger("mcsettlers.lodInterval", 100);
+
+    // Average ticks the full simulation spends per felled block, walking included
+    public static final int LOD_TICKS_PER_BLOCK = Integer.getInteger("mcsettlers.lodTicksPerBlock", 25);
+
+    // Drops of settler-broken blocks go to storage instead of spawning item entities
+    public static final boolean DIRECT_HARVEST = Boolean.parseBoolean(System.getProperty("mcsettlers.directHarvest", "true"));
+
+    // Players this close to a settler are sent its job status for the client overlay
+    public static final int STATUS_RANGE = Integer.getInteger("mcsettlers.statusRange", 32);
+
+    // Settlers run the vanilla entity scan sensors this many times less often, 1 for normal
+    public static final int SENSOR_SLOWDOWN = Integer.getInteger("mcsettlers.sensorSlowdown", 4);
+
+    // Path nodes kept in the settler route cache over all routes of a world, 0 disables it
+    public static final int ROUTE_CACHE_NODES = Integer.getInteger("mcsettlers.routeCacheNodes", 16384);
+
+    // Idle woodcutters get trees from FellingJobBoard instead of searching on their own
+    public static final boolean JOB_BOARD = Boolean.parseBoolean(System.getProperty("mcsettlers.jobBoard", "true"));
+
+    // The job board answers waiting woodcutters once every this many ticks
+    public static final int JOB_BOARD_INTERVAL = Integer.getInteger("mcsettlers.jobBoardInterval", 5);
+
+    // A leased tree goes back on the board after this many ticks without progress
+    public static final int LEASE_TICKS = Integer.getInteger("mcsettlers.leaseTicks", 1200);
+}
@@ -0,0 +1,130 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.entity.ai.brain.MemoryModuleType;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.GlobalPos;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Drops of blocks broken by settlers, kept as stacks instead of item entities. The drops
+// of a tick are merged per villager and stored once when SettlerMutations is done: first
+// in a container next to the villager's workstation, then in the villager's own
+// inventory. Only what fits nowhere is dropped in the world, at the last broken block.
+public class SettlerHarvest {
+    private static final Map<ServerWorld, Map<VillagerEntity, Pending>> PENDING = new IdentityHashMap<>();
+
+    private static class Pending {
+        private final List<ItemStack> stacks = new ArrayList<>();
+        private BlockPos lastPos;
+    }
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            Map<VillagerEntity, Pending> pending = PENDING.get(world);
+            if (pending != null && entity instanceof VillagerEntity villager) {
+                Pending harvest = pending.remove(villager);
+                if (harvest != null) {
+                    // Never lose items, drop them where they were mined
+                    for (ItemStack stack : harvest.stacks) {
+                        Block.dropStack(world, harvest.lastPos, stack);
+                    }
+                }
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> PENDING.clear());
+    }
+
+    // Keep the drops of a block the villager broke until the end of the tick
+    public static void collect(ServerWorld world, VillagerEntity villager, BlockPos pos, List<ItemStack> drops) {
+        Map<VillagerEntity, Pending> pending = PENDING.get(world);
+        if (pending == null) {
+            pending = new IdentityHashMap<>();
+            PENDING.put(world, pending);
+        }
+        Pending harvest = pending.get(villager);
+        if (harvest == null) {
+            harvest = new Pending();
+            pending.put(villager, harvest);
+        }
+        harvest.lastPos = pos;
+        for (ItemStack drop : drops) {
+            merge(harvest.stacks, drop);
+        }
+    }
+
+    // Called by SettlerMutations after applying the tick's block changes
+    public static void flush(ServerWorld world) {
+        Map<VillagerEntity, Pending> pending = PENDING.get(world);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<VillagerEntity, Pending> entry : pending.entrySet()) {
+            VillagerEntity villager = entry.getKey();
+            Pending harvest = entry.getValue();
+            Inventory storage = findStorage(world, villager);
+            for (ItemStack stack : harvest.stacks) {
+                int count = stack.getCount();
+                if (storage != null) {
+                    stack = HopperBlockEntity.transfer(null, storage, stack, null);
+                }
+                if (!stack.isEmpty()) {
+                    stack = villager.getInventory().addStack(stack);
+                }
+                SettlerMetrics.ITEMS_STORED.add(count - stack.getCount());
+                if (!stack.isEmpty()) {
+                    SettlerMetrics.ITEMS_DROPPED.add(stack.getCount());
+                    Block.dropStack(world, harvest.lastPos, stack);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    // First container touching the villager's workstation, or null
+    private static Inventory findStorage(ServerWorld world, VillagerEntity villager) {
+        GlobalPos jobSite = villager.getBrain().getOptionalMemory(MemoryModuleType.JOB_SITE).orElse(null);
+        if (jobSite == null || jobSite.dimension() != world.getRegistryKey()) {
+            return null;
+        }
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (Direction dir : Direction.values()) {
+            pos.set(jobSite.pos(), dir);
+            if (!world.isChunkLoaded(pos)) {
+                continue;
+            }
+            Inventory inventory = HopperBlockEntity.getInventoryAt(world, pos);
+            if (inventory != null) {
+                return inventory;
+            }
+        }
+        return null;
+    }
+
+    private static void merge(List<ItemStack> stacks, ItemStack drop) {
+        for (ItemStack stack : stacks) {
+            if (drop.isEmpty()) {
+                return;
+            }
+            if (ItemStack.areItemsAndComponentsEqual(stack, drop) && stack.getCount() < stack.getMaxCount()) {
+                int moved = Math.min(drop.getCount(), stack.getMaxCount() - stack.getCount());
+                stack.increment(moved);
+                drop.decrement(moved);
+            }
+        }
+        if (!drop.isEmpty()) {
+            stacks.add(drop);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.mcsettlers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Custom JDK Flight Recorder events, recorded with e.g. -XX:StartFlightRecording.
+// Timings are carried as fields since they are measured with System.nanoTime.
+public class SettlerJfr {
+    @Name("mcsettlers.SettlerTick")
+    @Label("Settler Tick")
+    @Category({ "MCSettlers" })
+    @Description("One WoodcutterBrain tick of a settler")
+    @StackTrace(false)
+    public static class SettlerTickEvent extends Event {
+        @Label("Entity Id")
+        public int entityId;
+
+        @Label("Job Status")
+        public String status;
+
+        @Label("Tick Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long tickTime;
+    }
+
+    @Name("mcsettlers.SettlerOperation")
+    @Label("Settler Operation")
+    @Category({ "MCSettlers" })
+    @Description("A search, raycast, access check or pillar scan done by a settler")
+    @StackTrace(false)
+    public static class SettlerOperationEvent extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Operation Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long operationTime;
+    }
+
+    @Name("mcsettlers.SettlerCount")
+    @Label("Settler Count")
+    @Category({ "MCSettlers" })
+    @Description("Loaded settlers per world")
+    @Period("1 s")
+    @StackTrace(false)
+    public static class SettlerCountEvent extends Event {
+        @Label("World")
+        public String world;
+
+        @Label("Settlers")
+        public int settlers;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.random.Random;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// Level of detail for settlers. Villagers with no player within SettlerConfig.LOD_DISTANCE
+// run WoodcutterBrain.tickCoarse on a slow cadence instead of the full brain, and go back
+// to the full brain as soon as a player comes near.
+public class SettlerLod {
+    // How often each villager re-checks for players, staggered by entity id
+    private static final int CHECK_INTERVAL = 20;
+
+    private static final Set<VillagerEntity> COARSE = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Off with -Dmcsettlers.lodDistance=0, or from code for servers without players (gametests)
+    private static boolean enabled = SettlerConfig.LOD_DISTANCE > 0;
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                COARSE.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> COARSE.clear());
+    }
+
+    // Turning it off sends every coarse villager back to the full brain on its next tick
+    public static void setEnabled(boolean value) {
+        enabled = value && SettlerConfig.LOD_DISTANCE > 0;
+        if (!enabled) {
+            COARSE.clear();
+        }
+    }
+
+    // Whether the villager runs the coarse simulation this tick
+    public static boolean isCoarse(VillagerEntity villager, ServerWorld world, long time) {
+        if (!enabled) {
+            return false;
+        }
+        boolean coarse = COARSE.contains(villager);
+        if (!SettlerScheduler.isPhase(villager, time, CHECK_INTERVAL)) {
+            return coarse;
+        }
+        boolean playerNear = world.isPlayerInRange(villager.getX(), villager.getY(), villager.getZ(),
+                SettlerConfig.LOD_DISTANCE);
+        if (coarse && playerNear) {
+            COARSE.remove(villager);
+            return false;
+        }
+        // Only switch between trees, never halfway up a pillar or through a block
+        if (!coarse && !playerNear && WoodcutterBrain.enterCoarse(villager)) {
+            COARSE.add(villager);
+            return true;
+        }
+        return coarse;
+    }
+
+    // Blocks a villager fells per coarse tick, matching the full simulation's average rate
+    public static int blocksPerTick(Random random) {
+        double blocks = (double) SettlerConfig.LOD_INTERVAL / SettlerConfig.LOD_TICKS_PER_BLOCK;
+        int whole = (int) blocks;
+        return whole + (random.nextDouble() < blocks - whole ? 1 : 0);
+    }
+
+    public static int countCoarse() {
+        return COARSE.size();
+    }
+}
@@ -0,0 +1,131 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.LatencyHistogram;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import jdk.jfr.FlightRecorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Tick timings and counters for /settlers stats and JDK Flight Recorder
+public class SettlerMetrics {
+    public enum Operation {
+        SEARCH,
+        RAYCAST,
+        ACCESS_CHECK,
+        PILLAR_SCAN,
+        PATHFIND,
+        // One WoodcutterBrain.tickCoarse batch, kept out of the per-status tick times
+        COARSE
+    }
+
+    private static final LatencyHistogram[] STATE_TIMES = new LatencyHistogram[JobStatus.values().length];
+    private static final LatencyHistogram[] OPERATION_TIMES = new LatencyHistogram[Operation.values().length];
+
+    public static final LongAdder BLOCK_STATE_READS = new LongAdder();
+    public static final LongAdder SEARCHES_STARTED = new LongAdder();
+    public static final LongAdder SEARCHES_FAILED = new LongAdder();
+    public static final LongAdder BLOCKS_BROKEN = new LongAdder();
+    public static final LongAdder ITEMS_STORED = new LongAdder();
+    public static final LongAdder ITEMS_DROPPED = new LongAdder();
+    public static final LongAdder ROUTE_HITS = new LongAdder();
+    public static final LongAdder ROUTE_MISSES = new LongAdder();
+
+    // Settlers per world, refreshed on the server thread for the JFR periodic event
+    private static volatile Map<String, Integer> settlerCounts = Map.of();
+
+    static {
+        for (int i = 0; i < STATE_TIMES.length; i++) {
+            STATE_TIMES[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < OPERATION_TIMES.length; i++) {
+            OPERATION_TIMES[i] = new LatencyHistogram();
+        }
+    }
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % 20 == 0) {
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (ServerWorld world : server.getWorlds()) {
+                    counts.put(world.getRegistryKey().getValue().toString(), SettlerRegistry.countSettlers(world));
+                }
+                settlerCounts = counts;
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> settlerCounts = Map.of());
+        FlightRecorder.addPeriodicEvent(SettlerJfr.SettlerCountEvent.class, () -> {
+            for (Map.Entry<String, Integer> entry : settlerCounts.entrySet()) {
+                SettlerJfr.SettlerCountEvent event = new SettlerJfr.SettlerCountEvent();
+                event.world = entry.getKey();
+                event.settlers = entry.getValue();
+                event.commit();
+            }
+        });
+    }
+
+    // Counted block state lookup, settler code reads the world through this
+    public static BlockState getBlockState(BlockView view, BlockPos pos) {
+        BLOCK_STATE_READS.increment();
+        return view.getBlockState(pos);
+    }
+
+    public static void recordTick(VillagerEntity villager, JobStatus status, long nanos) {
+        STATE_TIMES[status.ordinal()].record(nanos);
+        SettlerJfr.SettlerTickEvent event = new SettlerJfr.SettlerTickEvent();
+        if (event.isEnabled()) {
+            event.entityId = villager.getId();
+            event.status = status.getLabel();
+            event.tickTime = nanos;
+            event.commit();
+        }
+    }
+
+    // Records the time since startNanos (from System.nanoTime) against the operation
+    public static void recordOperation(Operation operation, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        OPERATION_TIMES[operation.ordinal()].record(nanos);
+        SettlerJfr.SettlerOperationEvent event = new SettlerJfr.SettlerOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.name();
+            event.operationTime = nanos;
+            event.commit();
+        }
+    }
+
+    public static LatencyHistogram getStateTimes(JobStatus status) {
+        return STATE_TIMES[status.ordinal()];
+    }
+
+    public static LatencyHistogram getOperationTimes(Operation operation) {
+        return OPERATION_TIMES[operation.ordinal()];
+    }
+
+    public static Map<String, Integer> getSettlerCounts() {
+        return settlerCounts;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : STATE_TIMES) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : OPERATION_TIMES) {
+            histogram.reset();
+        }
+        BLOCK_STATE_READS.reset();
+        SEARCHES_STARTED.reset();
+        SEARCHES_FAILED.reset();
+        BLOCKS_BROKEN.reset();
+        ITEMS_STORED.reset();
+        ITEMS_DROPPED.reset();
+        ROUTE_HITS.reset();
+        ROUTE_MISSES.reset();
+    }
+}
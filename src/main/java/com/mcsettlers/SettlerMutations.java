@@ -0,0 +1,160 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.GameRules;
+import net.minecraft.world.WorldEvents;
+import net.minecraft.world.event.GameEvent;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Block changes made by settlers during a tick, applied together once all settlers have
+// ticked. All changes to one chunk section then go out in the same delta packet, and
+// breaking progress is only sent when a villager's crack stage actually changes.
+public class SettlerMutations {
+    // END_SERVER_TICK phase that runs after the default one, where settlers tick
+    public static final Identifier PHASE = Identifier.of(MCSettlers.MOD_ID, "mutations");
+
+    // Clients are told and shapes are updated (so leaves still decay), but no neighbour
+    // updates are sent: nothing around a tree reacts to them
+    private static final int FLAGS = Block.NOTIFY_LISTENERS;
+
+    private static final Map<ServerWorld, Queue> QUEUES = new IdentityHashMap<>();
+
+    // New state for a position, or null state to break it with drops
+    private record Mutation(BlockState state, Entity breaker) {
+    }
+
+    private static class Queue {
+        // Last change per position wins
+        private final Long2ObjectLinkedOpenHashMap<Mutation> blocks = new Long2ObjectLinkedOpenHashMap<>();
+        // Breaking progress per entity id, pending and last sent
+        private final Int2LongOpenHashMap pendingPos = new Int2LongOpenHashMap();
+        private final Int2IntOpenHashMap pendingStage = new Int2IntOpenHashMap();
+        private final Int2LongOpenHashMap sentPos = new Int2LongOpenHashMap();
+        private final Int2IntOpenHashMap sentStage = new Int2IntOpenHashMap();
+    }
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.addPhaseOrdering(Event.DEFAULT_PHASE, PHASE);
+        ServerTickEvents.END_SERVER_TICK.register(PHASE, server -> {
+            for (Map.Entry<ServerWorld, Queue> entry : QUEUES.entrySet()) {
+                apply(entry.getKey(), entry.getValue());
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            Queue queue = QUEUES.get(world);
+            if (queue != null) {
+                queue.sentPos.remove(entity.getId());
+                queue.sentStage.remove(entity.getId());
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> QUEUES.clear());
+    }
+
+    public static void breakBlock(ServerWorld world, BlockPos pos, Entity breaker) {
+        queue(world).blocks.put(pos.asLong(), new Mutation(null, breaker));
+    }
+
+    public static void setBlockState(ServerWorld world, BlockPos pos, BlockState state) {
+        queue(world).blocks.put(pos.asLong(), new Mutation(state, null));
+    }
+
+    // Same stages as ServerWorld.setBlockBreakingInfo, anything outside 0-9 clears the crack
+    public static void setBreakingStage(ServerWorld world, Entity breaker, BlockPos pos, int stage) {
+        Queue queue = queue(world);
+        queue.pendingPos.put(breaker.getId(), pos.asLong());
+        queue.pendingStage.put(breaker.getId(), stage);
+    }
+
+    private static Queue queue(ServerWorld world) {
+        Queue queue = QUEUES.get(world);
+        if (queue == null) {
+            queue = new Queue();
+            QUEUES.put(world, queue);
+        }
+        return queue;
+    }
+
+    private static void apply(ServerWorld world, Queue queue) {
+        if (!queue.blocks.isEmpty()) {
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+            for (Long2ObjectMap.Entry<Mutation> entry : queue.blocks.long2ObjectEntrySet()) {
+                pos.set(entry.getLongKey());
+                Mutation mutation = entry.getValue();
+                if (mutation.state() != null) {
+                    world.setBlockState(pos, mutation.state(), FLAGS);
+                } else {
+                    applyBreak(world, pos.toImmutable(), mutation.breaker());
+                }
+            }
+            queue.blocks.clear();
+            SettlerHarvest.flush(world);
+        }
+
+        if (!queue.pendingStage.isEmpty()) {
+            for (Int2IntMap.Entry entry : queue.pendingStage.int2IntEntrySet()) {
+                int entityId = entry.getIntKey();
+                int stage = entry.getIntValue();
+                long packed = queue.pendingPos.get(entityId);
+                boolean clear = stage < 0 || stage > 9;
+                if (queue.sentStage.containsKey(entityId) && queue.sentStage.get(entityId) == stage
+                        && queue.sentPos.get(entityId) == packed) {
+                    continue; // Clients already show this stage
+                }
+                if (clear && !queue.sentStage.containsKey(entityId)) {
+                    continue; // Nothing shown to clear
+                }
+                world.setBlockBreakingInfo(entityId, BlockPos.fromLong(packed), stage);
+                if (clear) {
+                    queue.sentPos.remove(entityId);
+                    queue.sentStage.remove(entityId);
+                } else {
+                    queue.sentPos.put(entityId, packed);
+                    queue.sentStage.put(entityId, stage);
+                }
+            }
+            queue.pendingPos.clear();
+            queue.pendingStage.clear();
+        }
+    }
+
+    // What world.breakBlock(pos, true, breaker) does, with this class's update flags.
+    // Villagers keep the drops through SettlerHarvest instead of spawning item entities.
+    private static void applyBreak(ServerWorld world, BlockPos pos, Entity breaker) {
+        BlockState state = world.getBlockState(pos);
+        if (state.isAir()) {
+            return; // Someone else got there first
+        }
+        world.syncWorldEvent(WorldEvents.BLOCK_BROKEN, pos, Block.getRawIdFromState(state));
+        BlockEntity blockEntity = world.getBlockEntity(pos);
+        if (SettlerConfig.DIRECT_HARVEST && breaker instanceof VillagerEntity villager) {
+            if (world.getGameRules().getBoolean(GameRules.DO_TILE_DROPS)) {
+                SettlerHarvest.collect(world, villager, pos,
+                        Block.getDroppedStacks(state, world, pos, blockEntity, breaker, ItemStack.EMPTY));
+            }
+            state.onStacksDropped(world, pos, ItemStack.EMPTY, true);
+        } else {
+            Block.dropStacks(state, world, pos, blockEntity, breaker, ItemStack.EMPTY);
+        }
+        world.setBlockState(pos, world.getFluidState(pos).getBlockState(), FLAGS);
+        world.emitGameEvent(GameEvent.BLOCK_DESTROY, pos, GameEvent.Emitter.of(breaker, state));
+    }
+}
@@ -0,0 +1,133 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.village.VillagerProfession;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Loaded settler villagers grouped by world and profession, kept current from entity
+// load/unload and profession changes so the server tick never scans all entities.
+public class SettlerRegistry {
+    // Professions that have a settler brain
+    public static final List<RegistryKey<VillagerProfession>> SETTLER_PROFESSIONS = List.of(
+            VillagerProfession.FLETCHER);
+
+    private static final Map<ServerWorld, Map<RegistryKey<VillagerProfession>, Set<VillagerEntity>>> SETTLERS =
+            new IdentityHashMap<>();
+    // Every loaded villager and the settler profession it is filed under (null for none)
+    private static final Map<VillagerEntity, RegistryKey<VillagerProfession>> LOADED = new IdentityHashMap<>();
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                onLoad(villager, world);
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                onUnload(villager, world);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            SETTLERS.clear();
+            LOADED.clear();
+        });
+    }
+
+    public static Collection<VillagerEntity> getSettlers(ServerWorld world, RegistryKey<VillagerProfession> profession) {
+        Map<RegistryKey<VillagerProfession>, Set<VillagerEntity>> byProfession = SETTLERS.get(world);
+        if (byProfession == null) {
+            return Collections.emptySet();
+        }
+        Set<VillagerEntity> settlers = byProfession.get(profession);
+        return settlers != null ? settlers : Collections.emptySet();
+    }
+
+    public static int countSettlers(ServerWorld world) {
+        Map<RegistryKey<VillagerProfession>, Set<VillagerEntity>> byProfession = SETTLERS.get(world);
+        if (byProfession == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Set<VillagerEntity> settlers : byProfession.values()) {
+            count += settlers.size();
+        }
+        return count;
+    }
+
+    // Whether the villager has a settler profession, for the per-tick brain hooks
+    public static boolean isSettler(VillagerEntity villager) {
+        return LOADED.get(villager) != null;
+    }
+
+    // Whether the villager's profession has a settler brain, loaded or not
+    public static boolean hasSettlerProfession(VillagerEntity villager) {
+        return settlerProfession(villager) != null;
+    }
+
+    // Called from VillagerEntityMixin whenever the villager data is replaced
+    public static void onProfessionChanged(VillagerEntity villager) {
+        if (!(villager.getWorld() instanceof ServerWorld world) || !LOADED.containsKey(villager)) {
+            return; // Not loaded yet, ENTITY_LOAD will file it
+        }
+        RegistryKey<VillagerProfession> previous = LOADED.get(villager);
+        RegistryKey<VillagerProfession> current = settlerProfession(villager);
+        if (previous == current) {
+            return;
+        }
+        if (previous != null) {
+            remove(world, previous, villager);
+        }
+        if (current != null) {
+            add(world, current, villager);
+        }
+        LOADED.put(villager, current);
+    }
+
+    private static void onLoad(VillagerEntity villager, ServerWorld world) {
+        RegistryKey<VillagerProfession> profession = settlerProfession(villager);
+        LOADED.put(villager, profession);
+        if (profession != null) {
+            add(world, profession, villager);
+        }
+    }
+
+    private static void onUnload(VillagerEntity villager, ServerWorld world) {
+        RegistryKey<VillagerProfession> profession = LOADED.remove(villager);
+        if (profession != null) {
+            remove(world, profession, villager);
+        }
+    }
+
+    private static RegistryKey<VillagerProfession> settlerProfession(VillagerEntity villager) {
+        for (RegistryKey<VillagerProfession> profession : SETTLER_PROFESSIONS) {
+            if (villager.getVillagerData().profession().matchesKey(profession)) {
+                return profession;
+            }
+        }
+        return null;
+    }
+
+    private static void add(ServerWorld world, RegistryKey<VillagerProfession> profession, VillagerEntity villager) {
+        SETTLERS.computeIfAbsent(world, w -> new IdentityHashMap<>())
+                .computeIfAbsent(profession, p -> new LinkedHashSet<>())
+                .add(villager);
+    }
+
+    private static void remove(ServerWorld world, RegistryKey<VillagerProfession> profession, VillagerEntity villager) {
+        Map<RegistryKey<VillagerProfession>, Set<VillagerEntity>> byProfession = SETTLERS.get(world);
+        if (byProfession != null && byProfession.containsKey(profession)) {
+            byProfession.get(profession).remove(villager);
+        }
+    }
+}
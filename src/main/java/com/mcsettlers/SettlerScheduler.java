@@ -0,0 +1,77 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Runs settler brains for one world per tick. Cheap states tick every time, expensive
+// ones only on their phase and within SettlerConfig.SEARCH_BUDGET_NANOS. Work that does
+// not fit stays queued and goes first on the next tick, so nobody starves.
+public class SettlerScheduler {
+    public enum TickCost {
+        SKIP,
+        CHEAP,
+        EXPENSIVE
+    }
+
+    private static final Map<ServerWorld, SettlerScheduler> SCHEDULERS = new IdentityHashMap<>();
+
+    private final ArrayDeque<VillagerEntity> deferred = new ArrayDeque<>();
+    private final Set<VillagerEntity> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public static void register() {
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> SCHEDULERS.clear());
+    }
+
+    public static void tick(ServerWorld world, Collection<VillagerEntity> settlers) {
+        SCHEDULERS.computeIfAbsent(world, w -> new SettlerScheduler()).run(world, settlers);
+    }
+
+    // Spreads periodic work of different villagers over different ticks
+    public static boolean isPhase(VillagerEntity villager, long time, int interval) {
+        return Math.floorMod(time + villager.getId(), interval) == 0;
+    }
+
+    private void run(ServerWorld world, Collection<VillagerEntity> settlers) {
+        long time = world.getTime();
+        for (VillagerEntity villager : settlers) {
+            if (SettlerLod.isCoarse(villager, world, time)) {
+                if (isPhase(villager, time, SettlerConfig.LOD_INTERVAL)) {
+                    WoodcutterBrain.tickCoarse(villager, world);
+                }
+                continue;
+            }
+            switch (WoodcutterBrain.tickCost(villager, time)) {
+                case CHEAP -> WoodcutterBrain.tick(villager, world);
+                case EXPENSIVE -> {
+                    // Already queued villagers keep their place in line
+                    if (queued.add(villager)) {
+                        deferred.addLast(villager);
+                    }
+                }
+                case SKIP -> {
+                }
+            }
+        }
+
+        // Always run at least one so a single slow villager cannot stall the queue
+        long deadline = System.nanoTime() + SettlerConfig.SEARCH_BUDGET_NANOS;
+        boolean first = true;
+        while (!deferred.isEmpty() && (first || System.nanoTime() < deadline)) {
+            VillagerEntity villager = deferred.pollFirst();
+            queued.remove(villager);
+            if (villager.isRemoved()) {
+                continue;
+            }
+            WoodcutterBrain.tick(villager, world);
+            first = false;
+        }
+    }
+}
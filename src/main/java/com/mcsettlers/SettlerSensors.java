@@ -0,0 +1,35 @@
+package com.mcsettlers;
+
+import net.minecraft.entity.ai.brain.sensor.SensorType;
+import net.minecraft.entity.passive.VillagerEntity;
+
+import java.util.Set;
+
+// Which vanilla villager sensors run for settlers. WoodcutterBrain drives their work, so
+// sensors that only feed vanilla job, breeding and play tasks are dropped, and the
+// expensive entity scans run at 1/SettlerConfig.SENSOR_SLOWDOWN of their usual rate.
+// Called from BrainMixin for every sensor of a settler's brain.
+public class SettlerSensors {
+    // Secondary job sites are farmer composters, and settlers do not play with babies
+    private static final Set<SensorType<?>> SKIPPED = Set.of(
+            SensorType.SECONDARY_POIS,
+            SensorType.VILLAGER_BABIES);
+
+    // Entity box scans. Hostiles, hurt-by and players still react every tick from the
+    // memories these leave, just a little staler.
+    private static final Set<SensorType<?>> SLOWED = Set.of(
+            SensorType.NEAREST_LIVING_ENTITIES,
+            SensorType.NEAREST_ITEMS,
+            SensorType.GOLEM_DETECTED);
+
+    public static boolean shouldTick(VillagerEntity villager, SensorType<?> type, long time) {
+        if (SKIPPED.contains(type)) {
+            return false;
+        }
+        if (SLOWED.contains(type)) {
+            // Sensors count down their own interval per call, so this stretches it
+            return SettlerScheduler.isPhase(villager, time, Math.max(1, SettlerConfig.SENSOR_SLOWDOWN));
+        }
+        return true;
+    }
+}
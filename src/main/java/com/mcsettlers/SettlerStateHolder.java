@@ -0,0 +1,8 @@
+package com.mcsettlers;
+
+// Implemented on VillagerEntity by VillagerEntityMixin: the villager's slot in SettlerStateStore
+public interface SettlerStateHolder {
+    int settlers$getStateIndex();
+
+    void settlers$setStateIndex(int index);
+}
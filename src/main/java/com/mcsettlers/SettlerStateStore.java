@@ -0,0 +1,271 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.math.BlockPos;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+// Woodcutter job state in parallel arrays indexed by a dense per-villager slot, instead of
+// boxed Brain memories. Slots are handed out on first use and recycled when the villager
+// unloads. Server thread only.
+public class SettlerStateStore {
+    private static final int HAS_TARGET = 1;
+    private static final int HAS_NO_WORK_TIMER = 1 << 1;
+    private static final int KEEP_PILLARING = 1 << 2;
+
+    private static final byte NO_STATUS = -1;
+    private static final JobStatus[] STATUSES = JobStatus.values();
+
+    private static int capacity = 64;
+    private static int size = 0;
+    private static final IntArrayList FREE = new IntArrayList();
+
+    private static VillagerEntity[] owners = new VillagerEntity[capacity];
+    private static byte[] statuses = new byte[capacity];
+    private static int[] flags = new int[capacity];
+    private static long[] targets = new long[capacity];
+    private static int[] breakProgress = new int[capacity];
+    private static long[] noWorkUntil = new long[capacity];
+    // Dirt placed while pillaring, bottom first. Allocated on the first pillar.
+    private static LongArrayList[] pillars = new LongArrayList[capacity];
+    // Changed since last handed to SettlerWorldState
+    private static boolean[] dirty = new boolean[capacity];
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                SettlerWorldState.onLoad(villager, world);
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                // Saved before the slot is recycled
+                SettlerWorldState.onUnload(villager, world);
+                release(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> clear());
+    }
+
+    public static JobStatus getStatus(VillagerEntity villager) {
+        byte status = statuses[slot(villager)];
+        return status == NO_STATUS ? null : STATUSES[status];
+    }
+
+    public static void setStatus(VillagerEntity villager, JobStatus status) {
+        statuses[dirtySlot(villager)] = status == null ? NO_STATUS : (byte) status.ordinal();
+    }
+
+    public static BlockPos getTarget(VillagerEntity villager) {
+        int slot = slot(villager);
+        return (flags[slot] & HAS_TARGET) != 0 ? BlockPos.fromLong(targets[slot]) : null;
+    }
+
+    public static void setTarget(VillagerEntity villager, BlockPos target) {
+        int slot = dirtySlot(villager);
+        targets[slot] = target.asLong();
+        flags[slot] |= HAS_TARGET;
+    }
+
+    public static void clearTarget(VillagerEntity villager) {
+        flags[dirtySlot(villager)] &= ~HAS_TARGET;
+    }
+
+    public static int getBreakProgress(VillagerEntity villager) {
+        return breakProgress[slot(villager)];
+    }
+
+    public static void setBreakProgress(VillagerEntity villager, int progress) {
+        breakProgress[dirtySlot(villager)] = progress;
+    }
+
+    // World time the no_work wait ends, or -1 when no timer is running
+    public static long getNoWorkUntil(VillagerEntity villager) {
+        int slot = slot(villager);
+        return (flags[slot] & HAS_NO_WORK_TIMER) != 0 ? noWorkUntil[slot] : -1;
+    }
+
+    public static void setNoWorkUntil(VillagerEntity villager, long time) {
+        int slot = dirtySlot(villager);
+        noWorkUntil[slot] = time;
+        flags[slot] |= HAS_NO_WORK_TIMER;
+    }
+
+    public static void clearNoWorkUntil(VillagerEntity villager) {
+        flags[dirtySlot(villager)] &= ~HAS_NO_WORK_TIMER;
+    }
+
+    public static boolean isKeepPillaring(VillagerEntity villager) {
+        return (flags[slot(villager)] & KEEP_PILLARING) != 0;
+    }
+
+    public static void setKeepPillaring(VillagerEntity villager, boolean keep) {
+        int slot = dirtySlot(villager);
+        flags[slot] = keep ? flags[slot] | KEEP_PILLARING : flags[slot] & ~KEEP_PILLARING;
+    }
+
+    public static int getPillarHeight(VillagerEntity villager) {
+        LongArrayList pillar = pillars[slot(villager)];
+        return pillar == null ? 0 : pillar.size();
+    }
+
+    public static void pushPillarBlock(VillagerEntity villager, BlockPos pos) {
+        int slot = dirtySlot(villager);
+        if (pillars[slot] == null) {
+            pillars[slot] = new LongArrayList();
+        }
+        pillars[slot].add(pos.asLong());
+    }
+
+    // Topmost pillar block, removed from the pillar, or null if there is none
+    public static BlockPos popPillarBlock(VillagerEntity villager) {
+        // Called for every unloading villager, don't give the ones without state a slot
+        int slot = ((SettlerStateHolder) villager).settlers$getStateIndex();
+        LongArrayList pillar = slot >= 0 ? pillars[slot] : null;
+        if (pillar == null || pillar.isEmpty()) {
+            return null;
+        }
+        dirty[slot] = true;
+        return BlockPos.fromLong(pillar.removeLong(pillar.size() - 1));
+    }
+
+    // Settlers changed since they were last saved, handed to the consumer and marked clean
+    public static void flushDirty(BiConsumer<VillagerEntity, byte[]> consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            if (dirty[slot] && owners[slot] != null) {
+                dirty[slot] = false;
+                consumer.accept(owners[slot], encode(slot));
+            }
+        }
+    }
+
+    // Compact record of a villager's state for SettlerWorldState, or null if nothing
+    // changed since it was last saved
+    public static byte[] saveIfDirty(VillagerEntity villager) {
+        int slot = ((SettlerStateHolder) villager).settlers$getStateIndex();
+        if (slot < 0 || !dirty[slot]) {
+            return null;
+        }
+        dirty[slot] = false;
+        return encode(slot);
+    }
+
+    public static void restore(VillagerEntity villager, byte[] record) {
+        int slot = slot(villager);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte status = buffer.get();
+        // Records from a version with other statuses come back without one
+        statuses[slot] = status >= 0 && status < STATUSES.length ? status : NO_STATUS;
+        flags[slot] = buffer.get();
+        targets[slot] = buffer.getLong();
+        breakProgress[slot] = buffer.get();
+        noWorkUntil[slot] = buffer.getLong();
+        int pillarHeight = buffer.getShort();
+        if (pillarHeight > 0) {
+            if (pillars[slot] == null) {
+                pillars[slot] = new LongArrayList(pillarHeight);
+            }
+            for (int i = 0; i < pillarHeight; i++) {
+                pillars[slot].add(buffer.getLong());
+            }
+        }
+        dirty[slot] = false;
+    }
+
+    // status, flags, target, progress, timer, pillar height, pillar blocks
+    private static byte[] encode(int slot) {
+        LongArrayList pillar = pillars[slot];
+        int pillarHeight = pillar == null ? 0 : pillar.size();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 1 + 8 + 1 + 8 + 2 + pillarHeight * 8);
+        buffer.put(statuses[slot]);
+        buffer.put((byte) flags[slot]);
+        buffer.putLong(targets[slot]);
+        buffer.put((byte) breakProgress[slot]);
+        buffer.putLong(noWorkUntil[slot]);
+        buffer.putShort((short) pillarHeight);
+        for (int i = 0; i < pillarHeight; i++) {
+            buffer.putLong(pillar.getLong(i));
+        }
+        return buffer.array();
+    }
+
+    private static int dirtySlot(VillagerEntity villager) {
+        int slot = slot(villager);
+        dirty[slot] = true;
+        return slot;
+    }
+
+    private static int slot(VillagerEntity villager) {
+        SettlerStateHolder holder = (SettlerStateHolder) villager;
+        int slot = holder.settlers$getStateIndex();
+        if (slot < 0) {
+            slot = allocate(villager);
+            holder.settlers$setStateIndex(slot);
+        }
+        return slot;
+    }
+
+    private static int allocate(VillagerEntity villager) {
+        int slot;
+        if (!FREE.isEmpty()) {
+            slot = FREE.popInt();
+        } else {
+            if (size == capacity) {
+                grow();
+            }
+            slot = size++;
+        }
+        owners[slot] = villager;
+        statuses[slot] = NO_STATUS;
+        flags[slot] = 0;
+        targets[slot] = 0;
+        breakProgress[slot] = 0;
+        noWorkUntil[slot] = 0;
+        dirty[slot] = false;
+        if (pillars[slot] != null) {
+            pillars[slot].clear();
+        }
+        return slot;
+    }
+
+    private static void release(VillagerEntity villager) {
+        SettlerStateHolder holder = (SettlerStateHolder) villager;
+        int slot = holder.settlers$getStateIndex();
+        if (slot < 0 || owners[slot] != villager) {
+            return;
+        }
+        owners[slot] = null;
+        holder.settlers$setStateIndex(-1);
+        FREE.push(slot);
+    }
+
+    private static void grow() {
+        capacity *= 2;
+        owners = Arrays.copyOf(owners, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        breakProgress = Arrays.copyOf(breakProgress, capacity);
+        noWorkUntil = Arrays.copyOf(noWorkUntil, capacity);
+        pillars = Arrays.copyOf(pillars, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+    }
+
+    private static void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            if (owners[slot] != null) {
+                ((SettlerStateHolder) owners[slot]).settlers$setStateIndex(-1);
+                owners[slot] = null;
+            }
+            pillars[slot] = null;
+        }
+        size = 0;
+        FREE.clear();
+    }
+}
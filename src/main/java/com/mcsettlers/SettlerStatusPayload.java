@@ -0,0 +1,36 @@
+package com.mcsettlers;
+
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+// Job status of one settler for the client overlay: the JobStatus ordinal and, while
+// breaking, the progress in percent when it was sent. Progress changes are not sent, the
+// client advances it by PROGRESS_PER_TICK itself. NONE in either field means not set.
+public record SettlerStatusPayload(int entityId, byte status, byte progress) implements CustomPayload {
+    public static final CustomPayload.Id<SettlerStatusPayload> ID =
+            new CustomPayload.Id<>(Identifier.of(MCSettlers.MOD_ID, "status"));
+    public static final PacketCodec<RegistryByteBuf, SettlerStatusPayload> CODEC = PacketCodec.tuple(
+            PacketCodecs.VAR_INT, SettlerStatusPayload::entityId,
+            PacketCodecs.BYTE, SettlerStatusPayload::status,
+            PacketCodecs.BYTE, SettlerStatusPayload::progress,
+            SettlerStatusPayload::new);
+
+    public static final byte NONE = -1;
+
+    // Breaking advances one step of ten every tick
+    public static final int PROGRESS_PER_TICK = 10;
+
+    // The status, or null if the villager has none
+    public JobStatus getJobStatus() {
+        JobStatus[] values = JobStatus.values();
+        return status >= 0 && status < values.length ? values[status] : null;
+    }
+
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
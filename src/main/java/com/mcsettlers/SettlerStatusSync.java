@@ -0,0 +1,126 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.EntityTrackingEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.village.VillagerProfession;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Sends settler job status to nearby players with SettlerStatusPayload. A villager's
+// status goes out once per change, to tracking players within SettlerConfig.STATUS_RANGE;
+// players that come into range later get it on the next periodic check. Break progress
+// alone never triggers a send, clients advance it from the value sent with the status.
+public class SettlerStatusSync {
+    // How often players coming into range are looked for, staggered by entity id
+    private static final int RECHECK_INTERVAL = 20;
+
+    private static final Map<VillagerEntity, Sent> SENT = new IdentityHashMap<>();
+
+    // Last status sent for a villager and who has it
+    private static class Sent {
+        private byte status = SettlerStatusPayload.NONE;
+        private final Set<ServerPlayerEntity> players = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    public static void register() {
+        PayloadTypeRegistry.playS2C().register(SettlerStatusPayload.ID, SettlerStatusPayload.CODEC);
+        // After the settlers ticked, so a status that changed twice in a tick goes out once
+        ServerTickEvents.END_SERVER_TICK.register(SettlerMutations.PHASE, server -> {
+            for (ServerWorld world : server.getWorlds()) {
+                long time = world.getTime();
+                for (RegistryKey<VillagerProfession> profession : SettlerRegistry.SETTLER_PROFESSIONS) {
+                    for (VillagerEntity villager : SettlerRegistry.getSettlers(world, profession)) {
+                        sync(villager, time);
+                    }
+                }
+            }
+        });
+        EntityTrackingEvents.STOP_TRACKING.register((entity, player) -> {
+            if (entity instanceof VillagerEntity villager) {
+                Sent sent = SENT.get(villager);
+                if (sent != null) {
+                    sent.players.remove(player);
+                }
+            }
+        });
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager && SettlerWorldState.hasRecord(world, villager)) {
+                clearStatusName(villager);
+            }
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                SENT.remove(villager);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> SENT.clear());
+    }
+
+    private static void sync(VillagerEntity villager, long time) {
+        JobStatus status = SettlerStateStore.getStatus(villager);
+        byte statusByte = status != null ? (byte) status.ordinal() : SettlerStatusPayload.NONE;
+        // Break progress runs 0-10
+        byte progress = status == JobStatus.BREAKING
+                ? (byte) (SettlerStateStore.getBreakProgress(villager) * SettlerStatusPayload.PROGRESS_PER_TICK)
+                : SettlerStatusPayload.NONE;
+
+        Sent sent = SENT.get(villager);
+        if (sent == null) {
+            sent = new Sent();
+            SENT.put(villager, sent);
+        }
+        if (statusByte != sent.status) {
+            sent.status = statusByte;
+            sent.players.clear();
+        } else if (!SettlerScheduler.isPhase(villager, time, RECHECK_INTERVAL)) {
+            return;
+        }
+
+        double range2 = (double) SettlerConfig.STATUS_RANGE * SettlerConfig.STATUS_RANGE;
+        SettlerStatusPayload payload = null;
+        for (ServerPlayerEntity player : PlayerLookup.tracking(villager)) {
+            if (player.squaredDistanceTo(villager) > range2 || !sent.players.add(player)) {
+                continue;
+            }
+            // Players without the mod have no channel for it
+            if (!ServerPlayNetworking.canSend(player, SettlerStatusPayload.ID)) {
+                continue;
+            }
+            if (payload == null) {
+                payload = new SettlerStatusPayload(villager.getId(), statusByte, progress);
+            }
+            ServerPlayNetworking.send(player, payload);
+        }
+    }
+
+    // Statuses used to be shown as the custom name, drop those so the real name (if any)
+    // is not shadowed by a stale one. Only called for settlers with a saved record, so a
+    // name a player gave any other villager is left alone.
+    private static void clearStatusName(VillagerEntity villager) {
+        Text name = villager.getCustomName();
+        if (name == null) {
+            return;
+        }
+        String string = name.getString();
+        for (JobStatus status : JobStatus.values()) {
+            if (status.getLabel().equals(string)) {
+                villager.setCustomName(null);
+                villager.setCustomNameVisible(false);
+                return;
+            }
+        }
+    }
+}
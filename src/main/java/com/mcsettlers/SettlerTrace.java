@@ -0,0 +1,104 @@
+package com.mcsettlers;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-world ring buffer of recent settler events. Recording is a few array writes; text is
+// only built when the buffer is dumped with /settlers trace. Call sites check the category
+// flag first, and since the flags are static finals a disabled category costs one branch.
+public class SettlerTrace {
+    public enum Category {
+        STATE,
+        SEARCH,
+        BREAK,
+        PILLAR
+    }
+
+    public static final boolean STATE = enabled("state");
+    public static final boolean SEARCH = enabled("search");
+    public static final boolean BREAK = enabled("break");
+    public static final boolean PILLAR = enabled("pillar");
+
+    public static final int CAPACITY = Integer.getInteger("mcsettlers.trace.capacity", 4096);
+
+    private static final TraceEvent[] EVENTS = TraceEvent.values();
+    private static final Map<World, SettlerTrace> BUFFERS = new IdentityHashMap<>();
+
+    private final long[] times = new long[CAPACITY];
+    private final int[] entityIds = new int[CAPACITY];
+    private final byte[] events = new byte[CAPACITY];
+    private final long[] positions = new long[CAPACITY];
+    private final long[] args = new long[CAPACITY];
+    private long written = 0;
+
+    public static void register() {
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> BUFFERS.clear());
+    }
+
+    private static boolean enabled(String category) {
+        return Boolean.parseBoolean(System.getProperty("mcsettlers.trace." + category, "true"));
+    }
+
+    public static boolean isEnabled(Category category) {
+        return switch (category) {
+            case STATE -> STATE;
+            case SEARCH -> SEARCH;
+            case BREAK -> BREAK;
+            case PILLAR -> PILLAR;
+        };
+    }
+
+    public static void record(Entity entity, TraceEvent event, BlockPos pos, long arg) {
+        record(entity, event, pos.asLong(), arg);
+    }
+
+    public static void record(Entity entity, TraceEvent event, long pos, long arg) {
+        World world = entity.getWorld();
+        SettlerTrace buffer = BUFFERS.get(world);
+        if (buffer == null) {
+            buffer = new SettlerTrace();
+            BUFFERS.put(world, buffer);
+        }
+        int slot = (int) (buffer.written++ % CAPACITY);
+        buffer.times[slot] = world.getTime();
+        buffer.entityIds[slot] = entity.getId();
+        buffer.events[slot] = (byte) event.ordinal();
+        buffer.positions[slot] = pos;
+        buffer.args[slot] = arg;
+    }
+
+    // Packs a status change into an event argument
+    public static long transition(JobStatus from, JobStatus to) {
+        return (long) (from == null ? 0 : from.ordinal() + 1) << 8 | (to.ordinal() + 1);
+    }
+
+    // Formats the newest matching events, oldest first. entityId -1 and category null match all.
+    public static List<String> dump(World world, int entityId, Category category, int limit) {
+        List<String> lines = new ArrayList<>();
+        SettlerTrace buffer = BUFFERS.get(world);
+        if (buffer == null) {
+            return lines;
+        }
+        long oldest = Math.max(0, buffer.written - CAPACITY);
+        for (long i = buffer.written - 1; i >= oldest && lines.size() < limit; i--) {
+            int slot = (int) (i % CAPACITY);
+            TraceEvent event = EVENTS[buffer.events[slot]];
+            if ((entityId != -1 && buffer.entityIds[slot] != entityId)
+                    || (category != null && event.getCategory() != category)) {
+                continue;
+            }
+            lines.add("[" + buffer.times[slot] + "] #" + buffer.entityIds[slot] + " "
+                    + event.format(buffer.positions[slot], buffer.args[slot]));
+        }
+        Collections.reverse(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,137 @@
+package com.mcsettlers;
+
+import com.mojang.serialization.Codec;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.PersistentState;
+import net.minecraft.world.PersistentStateType;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Saved SettlerStateStore records of a world's settlers, by villager UUID, as one binary
+// blob. Changed settlers are copied in every FLUSH_INTERVAL ticks and when they unload,
+// and a villager gets its record back when it loads.
+public class SettlerWorldState extends PersistentState {
+    private static final int FLUSH_INTERVAL = 100;
+
+    private static final Codec<SettlerWorldState> CODEC = Codec.BYTE_BUFFER.fieldOf("settlers").codec()
+            .xmap(SettlerWorldState::decode, SettlerWorldState::encode);
+
+    private static final PersistentStateType<SettlerWorldState> TYPE =
+            new PersistentStateType<>(MCSettlers.MOD_ID + "_settlers", SettlerWorldState::new, CODEC, null);
+
+    private final Map<UUID, byte[]> records = new HashMap<>();
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % FLUSH_INTERVAL == 0) {
+                flush();
+            }
+        });
+        // Before the worlds save for the last time
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> flush());
+    }
+
+    public static SettlerWorldState get(ServerWorld world) {
+        return world.getPersistentStateManager().getOrCreate(TYPE);
+    }
+
+    public static boolean hasRecord(ServerWorld world, VillagerEntity villager) {
+        return get(world).records.containsKey(villager.getUuid());
+    }
+
+    static void onLoad(VillagerEntity villager, ServerWorld world) {
+        SettlerWorldState state = get(world);
+        byte[] record = state.records.get(villager.getUuid());
+        if (record != null && !SettlerRegistry.hasSettlerProfession(villager)) {
+            // Lost its profession while unloaded, or in an older version of the mod
+            state.remove(villager.getUuid());
+        } else if (record != null) {
+            SettlerStateStore.restore(villager, record);
+            WoodcutterBrain.onRestored(villager);
+        }
+    }
+
+    static void onUnload(VillagerEntity villager, ServerWorld world) {
+        Entity.RemovalReason reason = villager.getRemovalReason();
+        if (reason != null && reason.shouldDestroy()) {
+            // Gone for good, take its pillar down with it
+            BlockPos pillarBlock;
+            while ((pillarBlock = SettlerStateStore.popPillarBlock(villager)) != null) {
+                if (world.getBlockState(pillarBlock).isOf(Blocks.DIRT)) {
+                    SettlerMutations.setBlockState(world, pillarBlock, Blocks.AIR.getDefaultState());
+                }
+            }
+            get(world).remove(villager.getUuid());
+            return;
+        }
+        byte[] record = SettlerStateStore.saveIfDirty(villager);
+        save(villager, world, record);
+    }
+
+    private static void flush() {
+        SettlerStateStore.flushDirty((villager, record) -> {
+            if (villager.getWorld() instanceof ServerWorld world) {
+                save(villager, world, record);
+            }
+        });
+    }
+
+    // Villagers that are no longer settlers give up their record instead of updating it
+    private static void save(VillagerEntity villager, ServerWorld world, byte[] record) {
+        if (!SettlerRegistry.hasSettlerProfession(villager)) {
+            get(world).remove(villager.getUuid());
+        } else if (record != null) {
+            get(world).put(villager.getUuid(), record);
+        }
+    }
+
+    private void put(UUID uuid, byte[] record) {
+        records.put(uuid, record);
+        markDirty();
+    }
+
+    private void remove(UUID uuid) {
+        if (records.remove(uuid) != null) {
+            markDirty();
+        }
+    }
+
+    // count, then per record: uuid, length, record
+    private ByteBuffer encode() {
+        int size = 4;
+        for (byte[] record : records.values()) {
+            size += 16 + 2 + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(records.size());
+        for (Map.Entry<UUID, byte[]> entry : records.entrySet()) {
+            buffer.putLong(entry.getKey().getMostSignificantBits());
+            buffer.putLong(entry.getKey().getLeastSignificantBits());
+            buffer.putShort((short) entry.getValue().length);
+            buffer.put(entry.getValue());
+        }
+        return buffer.flip();
+    }
+
+    private static SettlerWorldState decode(ByteBuffer data) {
+        SettlerWorldState state = new SettlerWorldState();
+        ByteBuffer buffer = data.duplicate();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            byte[] record = new byte[buffer.getShort()];
+            buffer.get(record);
+            state.records.put(uuid, record);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,256 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.LoadedBlockView;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
+// Standable cells around one workstation, one bitmask per column of the window.
+// A cell is standable when the block below can carry a villager and the cell and the
+// one above are free. Cells reachable on foot from the workstation are flood filled
+// from the standable masks. Changed columns are only re-read when next queried. Columns
+// in chunks that are not loaded stay unknown (nothing standable) until SurfaceMaps
+// reports the chunk loaded; the map never loads chunks itself.
+public class SurfaceMap {
+    // Horizontal reach of the window, covers the work radius plus the columns next to it
+    public static final int RADIUS = WoodcutterBrain.SEARCH_RADIUS + 2;
+    // Rows per column, starting BELOW blocks under the workstation
+    public static final int HEIGHT = 32;
+    public static final int BELOW = 12;
+
+    // Villagers step up one block and drop down at most this many
+    private static final int MAX_DROP = 3;
+
+    private static final int SIDE = RADIUS * 2 + 1;
+
+    // Never a real mask: floor blocks are blocking, so no two adjacent cells are standable
+    private static final int UNKNOWN = -1;
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int workstationX;
+    private final int workstationY;
+    private final int workstationZ;
+
+    // Bit k of a column is the cell at minY + k
+    private final int[] standable = new int[SIDE * SIDE];
+    private final int[] reachable = new int[SIDE * SIDE];
+    private final boolean[] dirtyColumns = new boolean[SIDE * SIDE];
+    private final boolean[] unknownColumns = new boolean[SIDE * SIDE];
+    // Flood fill work queue, kept so refreshes don't allocate. Each cell is queued at most once.
+    private int[] queue;
+    private boolean anyDirtyColumn = false;
+    private boolean reachableDirty = true;
+
+    private long lastUsed;
+
+    public SurfaceMap(LoadedBlockView view, BlockPos workstation) {
+        this.workstationX = workstation.getX();
+        this.workstationY = workstation.getY();
+        this.workstationZ = workstation.getZ();
+        this.minX = workstationX - RADIUS;
+        this.minY = workstationY - BELOW;
+        this.minZ = workstationZ - RADIUS;
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int column = 0; column < standable.length; column++) {
+            standable[column] = readColumn(view, column, pos);
+            unknownColumns[column] = standable[column] == UNKNOWN;
+            if (unknownColumns[column]) {
+                standable[column] = 0;
+            }
+        }
+    }
+
+    public static boolean isFloor(BlockState state) {
+        return BlockClassifier.is(state, BlockClassifier.SOLID | BlockClassifier.LEAVES);
+    }
+
+    public static boolean isBlocking(BlockState state) {
+        return !BlockClassifier.is(state, BlockClassifier.AIR | BlockClassifier.REPLACEABLE);
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public void setLastUsed(long time) {
+        lastUsed = time;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxX() {
+        return minX + SIDE - 1;
+    }
+
+    public int getMaxZ() {
+        return minZ + SIDE - 1;
+    }
+
+    // Marks the unknown columns of a chunk that just loaded for reading
+    public void onChunkLoaded(int chunkX, int chunkZ) {
+        for (int x = Math.max(chunkX << 4, minX); x <= Math.min((chunkX << 4) + 15, getMaxX()); x++) {
+            for (int z = Math.max(chunkZ << 4, minZ); z <= Math.min((chunkZ << 4) + 15, getMaxZ()); z++) {
+                int column = (z - minZ) * SIDE + (x - minX);
+                if (unknownColumns[column]) {
+                    dirtyColumns[column] = true;
+                    anyDirtyColumn = true;
+                }
+            }
+        }
+    }
+
+    // Marks the column of a changed block for re-reading if the block is inside the window
+    public void onBlockChanged(BlockPos pos) {
+        int x = pos.getX() - minX, z = pos.getZ() - minZ, y = pos.getY() - minY;
+        // The row below the window decides the bottom cell, the row above it the top cell's head room
+        if (x < 0 || z < 0 || x >= SIDE || z >= SIDE || y < -1 || y > HEIGHT) {
+            return;
+        }
+        dirtyColumns[z * SIDE + x] = true;
+        anyDirtyColumn = true;
+    }
+
+    // Reachable standable cell in a column next to (or under) the target, nearest to the
+    // target and not above its feet-level, or null if the target cannot be walked to.
+    public BlockPos findStandableNextTo(LoadedBlockView view, BlockPos target) {
+        refresh(view);
+        int tx = target.getX(), ty = target.getY(), tz = target.getZ();
+        int bestX = 0, bestY = 0, bestZ = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int x = tx - 1; x <= tx + 1; x++) {
+            for (int z = tz - 1; z <= tz + 1; z++) {
+                int cx = x - minX, cz = z - minZ;
+                if (cx < 0 || cz < 0 || cx >= SIDE || cz >= SIDE) {
+                    continue;
+                }
+                int cells = reachable[cz * SIDE + cx];
+                while (cells != 0) {
+                    int k = Integer.numberOfTrailingZeros(cells);
+                    cells &= cells - 1;
+                    int y = minY + k;
+                    if (y > ty + 1) {
+                        break;
+                    }
+                    int dx = x - tx, dy = y - ty, dz = z - tz;
+                    int distance = dx * dx + dy * dy + dz * dz;
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestX = x;
+                        bestY = y;
+                        bestZ = z;
+                    }
+                }
+            }
+        }
+        return bestDistance == Integer.MAX_VALUE ? null : new BlockPos(bestX, bestY, bestZ);
+    }
+
+    public boolean isReachable(LoadedBlockView view, BlockPos pos) {
+        refresh(view);
+        int cx = pos.getX() - minX, cz = pos.getZ() - minZ, k = pos.getY() - minY;
+        if (cx < 0 || cz < 0 || cx >= SIDE || cz >= SIDE || k < 0 || k >= HEIGHT) {
+            return false;
+        }
+        return (reachable[cz * SIDE + cx] & (1 << k)) != 0;
+    }
+
+    private void refresh(LoadedBlockView view) {
+        if (anyDirtyColumn) {
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+            for (int column = 0; column < dirtyColumns.length; column++) {
+                if (dirtyColumns[column]) {
+                    dirtyColumns[column] = false;
+                    int mask = readColumn(view, column, pos);
+                    // Unloaded again since it was marked, wait for the next load
+                    unknownColumns[column] = mask == UNKNOWN;
+                    if (unknownColumns[column]) {
+                        mask = 0;
+                    }
+                    if (mask != standable[column]) {
+                        standable[column] = mask;
+                        reachableDirty = true;
+                    }
+                }
+            }
+            anyDirtyColumn = false;
+        }
+        if (reachableDirty) {
+            floodFill();
+            reachableDirty = false;
+        }
+    }
+
+    // Standable mask of the column, or UNKNOWN when its chunk is not loaded
+    private int readColumn(LoadedBlockView view, int column, BlockPos.Mutable pos) {
+        int x = minX + column % SIDE, z = minZ + column / SIDE;
+        if (!view.isChunkLoaded(x >> 4, z >> 4)) {
+            return UNKNOWN;
+        }
+        // Bit i is the block at minY - 1 + i, covering the row under and the row over the window
+        long floor = 0, blocking = 0;
+        for (int i = 0; i < HEIGHT + 2; i++) {
+            BlockState state = SettlerMetrics.getBlockState(view, pos.set(x, minY - 1 + i, z));
+            if (isFloor(state)) {
+                floor |= 1L << i;
+            }
+            if (isBlocking(state)) {
+                blocking |= 1L << i;
+            }
+        }
+        // Cell k needs floor at bit k and free space at bits k + 1 and k + 2
+        return (int) (floor & ~(blocking >>> 1) & ~(blocking >>> 2));
+    }
+
+    // Breadth-first over standable cells, starting next to the workstation
+    private void floodFill() {
+        java.util.Arrays.fill(reachable, 0);
+        if (queue == null) {
+            queue = new int[SIDE * SIDE * HEIGHT];
+        }
+        int head = 0, tail = 0;
+        int wx = workstationX - minX, wz = workstationZ - minZ, wk = workstationY - minY;
+        for (int x = wx - 1; x <= wx + 1; x++) {
+            for (int z = wz - 1; z <= wz + 1; z++) {
+                int column = z * SIDE + x;
+                for (int k = Math.max(0, wk - 2); k <= Math.min(HEIGHT - 1, wk + 2); k++) {
+                    if ((standable[column] & (1 << k)) != 0 && (reachable[column] & (1 << k)) == 0) {
+                        reachable[column] |= 1 << k;
+                        queue[tail++] = column * HEIGHT + k;
+                    }
+                }
+            }
+        }
+        if (tail == 0) {
+            // Workstation is boxed in, fall back to plain standability rather than nothing
+            System.arraycopy(standable, 0, reachable, 0, standable.length);
+            return;
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int column = cell / HEIGHT, k = cell % HEIGHT;
+            int x = column % SIDE, z = column / SIDE;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + (d == 0 ? 1 : d == 1 ? -1 : 0);
+                int nz = z + (d == 2 ? 1 : d == 3 ? -1 : 0);
+                if (nx < 0 || nz < 0 || nx >= SIDE || nz >= SIDE) {
+                    continue;
+                }
+                int next = nz * SIDE + nx;
+                for (int nk = Math.max(0, k - MAX_DROP); nk <= Math.min(HEIGHT - 1, k + 1); nk++) {
+                    int bit = 1 << nk;
+                    if ((standable[next] & bit) != 0 && (reachable[next] & bit) == 0) {
+                        reachable[next] |= bit;
+                        queue[tail++] = next * HEIGHT + nk;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mcsettlers;
+
+import com.mcsettlers.utils.LoadedBlockView;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Surface map of every workstation a woodcutter used recently, per world. Maps are also
+// filed under every chunk their window covers, so block changes and chunk loads only
+// reach the maps they concern.
+public class SurfaceMaps {
+    // Maps nobody queried for this long are dropped, and rebuilt on the next query
+    private static final long EXPIRE_TICKS = 6000;
+
+    private static final Map<ServerWorld, SurfaceMaps> WORLDS = new IdentityHashMap<>();
+
+    // Workstation -> map
+    private final Long2ObjectOpenHashMap<SurfaceMap> maps = new Long2ObjectOpenHashMap<>();
+    // Chunk pos -> maps with part of their window in it
+    private final Long2ObjectOpenHashMap<List<SurfaceMap>> byChunk = new Long2ObjectOpenHashMap<>();
+
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % 1200 != 0) {
+                return;
+            }
+            for (Map.Entry<ServerWorld, SurfaceMaps> entry : WORLDS.entrySet()) {
+                long now = entry.getKey().getTime();
+                SurfaceMaps world = entry.getValue();
+                ObjectIterator<SurfaceMap> it = world.maps.values().iterator();
+                while (it.hasNext()) {
+                    SurfaceMap map = it.next();
+                    if (now - map.getLastUsed() > EXPIRE_TICKS) {
+                        it.remove();
+                        world.unindex(map);
+                    }
+                }
+            }
+        });
+        ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            SurfaceMaps surfaceMaps = WORLDS.get(world);
+            List<SurfaceMap> covering = surfaceMaps != null ? surfaceMaps.byChunk.get(chunk.getPos().toLong()) : null;
+            if (covering != null) {
+                for (SurfaceMap map : covering) {
+                    map.onChunkLoaded(chunk.getPos().x, chunk.getPos().z);
+                }
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> WORLDS.clear());
+    }
+
+    public static SurfaceMap get(ServerWorld world, BlockPos workstation) {
+        SurfaceMaps surfaceMaps = WORLDS.get(world);
+        if (surfaceMaps == null) {
+            surfaceMaps = new SurfaceMaps();
+            WORLDS.put(world, surfaceMaps);
+        }
+        SurfaceMap map = surfaceMaps.maps.get(workstation.asLong());
+        if (map == null) {
+            map = new SurfaceMap(new LoadedBlockView(world), workstation);
+            surfaceMaps.maps.put(workstation.asLong(), map);
+            surfaceMaps.index(map);
+        }
+        map.setLastUsed(world.getTime());
+        return map;
+    }
+
+    // Called from ServerWorldMixin
+    public static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        SurfaceMaps surfaceMaps = WORLDS.get(world);
+        if (surfaceMaps == null || surfaceMaps.maps.isEmpty()) {
+            return;
+        }
+        if (SurfaceMap.isFloor(oldState) == SurfaceMap.isFloor(newState)
+                && SurfaceMap.isBlocking(oldState) == SurfaceMap.isBlocking(newState)) {
+            return;
+        }
+        List<SurfaceMap> covering = surfaceMaps.byChunk.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (covering == null) {
+            return;
+        }
+        for (SurfaceMap map : covering) {
+            map.onBlockChanged(pos);
+        }
+    }
+
+    private void index(SurfaceMap map) {
+        for (int chunkX = map.getMinX() >> 4; chunkX <= map.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = map.getMinZ() >> 4; chunkZ <= map.getMaxZ() >> 4; chunkZ++) {
+                long key = ChunkPos.toLong(chunkX, chunkZ);
+                List<SurfaceMap> covering = byChunk.get(key);
+                if (covering == null) {
+                    covering = new ArrayList<>(2);
+                    byChunk.put(key, covering);
+                }
+                covering.add(map);
+            }
+        }
+    }
+
+    private void unindex(SurfaceMap map) {
+        for (int chunkX = map.getMinX() >> 4; chunkX <= map.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = map.getMinZ() >> 4; chunkZ <= map.getMaxZ() >> 4; chunkZ++) {
+                long key = ChunkPos.toLong(chunkX, chunkZ);
+                List<SurfaceMap> covering = byChunk.get(key);
+                if (covering != null) {
+                    covering.remove(map);
+                    if (covering.isEmpty()) {
+                        byChunk.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
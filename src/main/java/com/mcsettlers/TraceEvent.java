@@ -0,0 +1,66 @@
+package com.mcsettlers;
+
+import net.minecraft.util.math.BlockPos;
+
+// Typed settler trace events. Arguments are stored raw in the ring buffer and only
+// turned into text when someone dumps the trace.
+public enum TraceEvent {
+    // arg: packed from/to statuses, see SettlerTrace.transition
+    STATE_CHANGE(SettlerTrace.Category.STATE, (pos, arg) ->
+            statusLabel(arg >> 8) + " -> " + statusLabel(arg & 0xFF)),
+    UNEXPECTED_TRANSITION(SettlerTrace.Category.STATE, (pos, arg) ->
+            "unexpected " + statusLabel(arg >> 8) + " -> " + statusLabel(arg & 0xFF)),
+    // arg: status ordinal << 32 | microseconds
+    SLOW_TICK(SettlerTrace.Category.STATE, (pos, arg) ->
+            statusLabel((arg >> 32) + 1) + " tick took " + (arg & 0xFFFFFFFFL) + "us"),
+    // pos: target, arg: packed approach
+    TARGET_FOUND(SettlerTrace.Category.SEARCH, (pos, arg) ->
+            "found " + pos.toShortString() + ", approach at " + BlockPos.fromLong(arg).toShortString()),
+    // pos: target
+    TARGET_UNREACHABLE(SettlerTrace.Category.SEARCH, (pos, arg) ->
+            "no reachable ground next to " + pos.toShortString() + ", skipping"),
+    // pos: villager, arg: search radius
+    NO_TARGET(SettlerTrace.Category.SEARCH, (pos, arg) ->
+            "no logs or leaves near " + pos.toShortString() + " within " + arg + " of the workstation"),
+    // pos: target, arg: distance in hundredths of a block
+    TARGET_TOO_FAR(SettlerTrace.Category.BREAK, (pos, arg) ->
+            "too far from " + pos.toShortString() + " (distance: " + (arg / 100) + "." + String.format("%02d", arg % 100) + ")"),
+    // pos: target, arg: 1 when holding an axe
+    BREAK_START(SettlerTrace.Category.BREAK, (pos, arg) ->
+            "start breaking " + pos.toShortString() + (arg != 0 ? " with axe" : "")),
+    BREAK_DONE(SettlerTrace.Category.BREAK, (pos, arg) -> "broke " + pos.toShortString()),
+    // pos: target
+    PILLAR_START(SettlerTrace.Category.PILLAR, (pos, arg) -> "pillar up to " + pos.toShortString()),
+    PILLAR_TARGET(SettlerTrace.Category.PILLAR, (pos, arg) -> "found " + pos.toShortString() + " while pillaring"),
+    PILLAR_PLACED(SettlerTrace.Category.PILLAR, (pos, arg) -> "placed dirt at " + pos.toShortString()),
+    PILLAR_BLOCKED(SettlerTrace.Category.PILLAR, (pos, arg) -> "cannot place dirt at " + pos.toShortString()),
+    // pos: villager
+    PILLAR_STOP(SettlerTrace.Category.PILLAR, (pos, arg) -> "no logs above " + pos.toShortString() + ", stopping");
+
+    public interface Formatter {
+        String format(BlockPos pos, long arg);
+    }
+
+    private static final JobStatus[] STATUSES = JobStatus.values();
+
+    private final SettlerTrace.Category category;
+    private final Formatter formatter;
+
+    TraceEvent(SettlerTrace.Category category, Formatter formatter) {
+        this.category = category;
+        this.formatter = formatter;
+    }
+
+    public SettlerTrace.Category getCategory() {
+        return category;
+    }
+
+    public String format(long pos, long arg) {
+        return formatter.format(BlockPos.fromLong(pos), arg);
+    }
+
+    // 0 is "none", otherwise ordinal + 1
+    private static String statusLabel(long code) {
+        return code == 0 ? "none" : STATUSES[(int) code - 1].getLabel();
+    }
+}
@@ -0,0 +1,122 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+// Flood-fills a tree from one of its logs through the TreeIndex and turns it into a
+// FellingPlan: leaves in the way at ground level first, then the trunk bottom to top.
+public class TreeDetector {
+    // How far above its feet a villager can break blocks without pillaring
+    public static final int REACH = 3;
+    // Upper bound so a dense forest is not picked up as one giant tree
+    public static final int MAX_LOGS = 256;
+
+    // Start may be a leaf: searches settle for one attached to a log when no log can be
+    // reached. The leaf is cleared first, then the tree of the log behind it.
+    public static FellingPlan detect(TreeIndex index, BlockPos start, BlockPos workstation, int radius) {
+        if (index.isLeaves(start)) {
+            return detectFromLeaf(index, start, workstation, radius);
+        }
+        if (!index.isLog(start)) {
+            return null;
+        }
+        int r2 = radius * radius;
+        LongOpenHashSet logs = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        logs.add(start.asLong());
+        queue.enqueue(start.asLong());
+        int baseY = start.getY();
+        int topY = start.getY();
+
+        // Logs connect diagonally too (acacia and dark oak branches)
+        while (!queue.isEmpty() && logs.size() < MAX_LOGS) {
+            long current = queue.dequeueLong();
+            int x = BlockPos.unpackLongX(current);
+            int y = BlockPos.unpackLongY(current);
+            int z = BlockPos.unpackLongZ(current);
+            baseY = Math.min(baseY, y);
+            topY = Math.max(topY, y);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        pos.set(x + dx, y + dy, z + dz);
+                        int hx = pos.getX() - workstation.getX();
+                        int hz = pos.getZ() - workstation.getZ();
+                        if (hx * hx + hz * hz > r2 || !index.isLog(pos) || !logs.add(pos.asLong())) {
+                            continue;
+                        }
+                        queue.enqueue(pos.asLong());
+                    }
+                }
+            }
+        }
+
+        // Leaves touching the trunk low enough to block the villager from the ground
+        LongOpenHashSet leaves = new LongOpenHashSet();
+        LongIterator it = logs.iterator();
+        while (it.hasNext()) {
+            long log = it.nextLong();
+            if (BlockPos.unpackLongY(log) > baseY + REACH) {
+                continue;
+            }
+            for (Direction dir : Direction.values()) {
+                pos.set(log).move(dir);
+                if (pos.getY() <= baseY + REACH && index.isLeaves(pos)) {
+                    leaves.add(pos.asLong());
+                }
+            }
+        }
+
+        LongArrayList entries = new LongArrayList(leaves.size() + logs.size());
+        entries.addAll(sortedBottomUp(leaves, start));
+        entries.addAll(sortedBottomUp(logs, start));
+        return new FellingPlan(entries.toLongArray(), baseY, topY);
+    }
+
+    private static FellingPlan detectFromLeaf(TreeIndex index, BlockPos leaf, BlockPos workstation, int radius) {
+        FellingPlan tree = null;
+        for (Direction dir : Direction.values()) {
+            BlockPos neighbour = leaf.offset(dir);
+            if (index.isLog(neighbour)) {
+                tree = detect(index, neighbour, workstation, radius);
+                break;
+            }
+        }
+        if (tree == null) {
+            return FellingPlan.single(leaf);
+        }
+        LongArrayList entries = new LongArrayList(tree.size() + 1);
+        entries.add(leaf.asLong());
+        for (long packed : tree.getRemaining()) {
+            if (packed != leaf.asLong()) {
+                entries.add(packed);
+            }
+        }
+        return new FellingPlan(entries.toLongArray(), Math.min(leaf.getY(), tree.getBaseY()),
+                Math.max(leaf.getY(), tree.getTopY()));
+    }
+
+    private static LongArrayList sortedBottomUp(LongOpenHashSet positions, BlockPos start) {
+        LongArrayList sorted = new LongArrayList(positions);
+        int sx = start.getX(), sz = start.getZ();
+        sorted.sort((long a, long b) -> {
+            int byY = Integer.compare(BlockPos.unpackLongY(a), BlockPos.unpackLongY(b));
+            if (byY != 0) {
+                return byY;
+            }
+            return Integer.compare(horizontalDistance(a, sx, sz), horizontalDistance(b, sx, sz));
+        });
+        return sorted;
+    }
+
+    private static int horizontalDistance(long packed, int x, int z) {
+        int dx = BlockPos.unpackLongX(packed) - x;
+        int dz = BlockPos.unpackLongZ(packed) - z;
+        return dx * dx + dz * dz;
+    }
+}
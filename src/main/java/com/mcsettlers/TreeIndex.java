@@ -0,0 +1,340 @@
+package com.mcsettlers;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongPredicate;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Log and leaf positions around settler workstations, bucketed per chunk section. Only
+// chunks within WATCH_RADIUS of a workstation in use are indexed: they are scanned when
+// they load or come into range and kept current from block changes, so woodcutters query
+// a handful of buckets instead of reading every block in a sphere.
+public class TreeIndex {
+    // Woodcutters search this far from their workstation, plus the scan around the villager
+    private static final int WATCH_RADIUS = WoodcutterBrain.SEARCH_RADIUS + 10;
+    // Workstations no settler reported for this long stop being watched
+    private static final int WATCH_REFRESH_TICKS = 1200;
+
+    private static final Map<ServerWorld, TreeIndex> INDEXES = new IdentityHashMap<>();
+
+    // Section key -> packed block positions. Sections without tree blocks have no entry.
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> logs = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> leaves = new Long2ObjectOpenHashMap<>();
+    // Workstations reported since the last refresh, and those being watched now
+    private final LongOpenHashSet reported = new LongOpenHashSet();
+    private final LongOpenHashSet workstations = new LongOpenHashSet();
+    // Chunk pos -> number of watched workstations in range of it
+    private final Long2IntOpenHashMap watchedChunks = new Long2IntOpenHashMap();
+
+    public static void register() {
+        ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            TreeIndex index = INDEXES.get(world);
+            if (index != null && index.watchedChunks.containsKey(chunk.getPos().toLong())) {
+                index.indexChunk(chunk);
+            }
+        });
+        ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            TreeIndex index = INDEXES.get(world);
+            if (index != null) {
+                index.dropChunk(chunk);
+            }
+        });
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % WATCH_REFRESH_TICKS != 0) {
+                return;
+            }
+            for (Map.Entry<ServerWorld, TreeIndex> entry : INDEXES.entrySet()) {
+                entry.getValue().refreshWatched(entry.getKey());
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> INDEXES.clear());
+    }
+
+    public static TreeIndex get(ServerWorld world) {
+        return INDEXES.computeIfAbsent(world, w -> new TreeIndex());
+    }
+
+    // Called by settlers with their workstation every time they tick. A new workstation
+    // has its loaded chunks indexed right away.
+    public static void watch(ServerWorld world, BlockPos workstation) {
+        TreeIndex index = get(world);
+        long packed = workstation.asLong();
+        index.reported.add(packed);
+        if (index.workstations.add(packed)) {
+            index.forEachChunkInRange(packed, chunkPos -> {
+                if (index.watchedChunks.addTo(chunkPos, 1) == 0) {
+                    WorldChunk chunk = world.getChunkManager().getWorldChunk(
+                            ChunkPos.getPackedX(chunkPos), ChunkPos.getPackedZ(chunkPos));
+                    if (chunk != null) {
+                        index.indexChunk(chunk);
+                    }
+                }
+            });
+        }
+    }
+
+    // Called from ServerWorldMixin for every block state change in a loaded chunk
+    public static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        TreeIndex index = INDEXES.get(world);
+        if (index != null && index.watchedChunks.containsKey(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4))) {
+            index.update(pos, oldState, newState);
+        }
+    }
+
+    public void update(BlockPos pos, BlockState oldState, BlockState newState) {
+        int oldFlags = BlockClassifier.getFlags(oldState) & BlockClassifier.TREE;
+        int newFlags = BlockClassifier.getFlags(newState) & BlockClassifier.TREE;
+        if (oldFlags == newFlags) {
+            return;
+        }
+        boolean wasLog = (oldFlags & BlockClassifier.LOG) != 0;
+        boolean wasLeaves = (oldFlags & BlockClassifier.LEAVES) != 0;
+        boolean nowLog = (newFlags & BlockClassifier.LOG) != 0;
+        boolean nowLeaves = (newFlags & BlockClassifier.LEAVES) != 0;
+        long packed = pos.asLong();
+        long section = ChunkSectionPos.fromBlockPos(packed);
+        if (wasLog != nowLog) {
+            update(logs, section, packed, nowLog);
+        }
+        if (wasLeaves != nowLeaves) {
+            update(leaves, section, packed, nowLeaves);
+        }
+    }
+
+    public static boolean isLog(BlockState state) {
+        return BlockClassifier.isLog(state);
+    }
+
+    public static boolean isLeaves(BlockState state) {
+        return BlockClassifier.isLeaves(state);
+    }
+
+    public boolean isLog(BlockPos pos) {
+        return contains(logs, pos.asLong());
+    }
+
+    public boolean isLeaves(BlockPos pos) {
+        return contains(leaves, pos.asLong());
+    }
+
+    // Logs within the radius of center accepted by the filter, nearest first
+    public LongArrayList nearestLogs(BlockPos center, int radius, LongPredicate filter) {
+        return drain(new NearestIterator(logs, center, radius, filter));
+    }
+
+    // Leaves within the radius of center accepted by the filter, nearest first
+    public LongArrayList nearestLeaves(BlockPos center, int radius, LongPredicate filter) {
+        return drain(new NearestIterator(leaves, center, radius, filter));
+    }
+
+    // Same as nearestLogs, but lazy: callers that stop early never open the far sections
+    public LongIterator iterateNearestLogs(BlockPos center, int radius, LongPredicate filter) {
+        return new NearestIterator(logs, center, radius, filter);
+    }
+
+    public LongIterator iterateNearestLeaves(BlockPos center, int radius, LongPredicate filter) {
+        return new NearestIterator(leaves, center, radius, filter);
+    }
+
+    private static LongArrayList drain(LongIterator it) {
+        LongArrayList found = new LongArrayList();
+        while (it.hasNext()) {
+            found.add(it.nextLong());
+        }
+        return found;
+    }
+
+    // Opens the sections in range in order of their nearest possible distance to the center
+    // and keeps only the opened candidates in a heap. A candidate is handed out once no
+    // unopened section can hold anything nearer.
+    private static class NearestIterator implements LongIterator {
+        private final Long2ObjectOpenHashMap<LongOpenHashSet> buckets;
+        private final int cx, cy, cz, r2;
+        private final LongPredicate filter;
+        // (nearest squared distance << 32 | section index) sorted ascending
+        private final long[] sections;
+        private final int minX, minY, minZ, sizeY, sizeZ;
+        private final LongHeapPriorityQueue heap;
+        private int next = 0;
+
+        private NearestIterator(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, BlockPos center, int radius,
+                LongPredicate filter) {
+            this.buckets = buckets;
+            this.cx = center.getX();
+            this.cy = center.getY();
+            this.cz = center.getZ();
+            this.r2 = radius * radius;
+            this.filter = filter;
+            this.minX = (cx - radius) >> 4;
+            this.minY = (cy - radius) >> 4;
+            this.minZ = (cz - radius) >> 4;
+            int sizeX = ((cx + radius) >> 4) - minX + 1;
+            this.sizeY = ((cy + radius) >> 4) - minY + 1;
+            this.sizeZ = ((cz + radius) >> 4) - minZ + 1;
+            LongArrayList inRange = new LongArrayList();
+            for (int i = 0; i < sizeX * sizeY * sizeZ; i++) {
+                int sx = minX + i / (sizeY * sizeZ), sy = minY + i / sizeZ % sizeY, sz = minZ + i % sizeZ;
+                int dx = axisDistance(cx, sx), dy = axisDistance(cy, sy), dz = axisDistance(cz, sz);
+                int d2 = dx * dx + dy * dy + dz * dz;
+                if (d2 <= r2 && buckets.containsKey(ChunkSectionPos.asLong(sx, sy, sz))) {
+                    inRange.add((long) d2 << 32 | i);
+                }
+            }
+            this.sections = inRange.toLongArray();
+            Arrays.sort(sections);
+            this.heap = new LongHeapPriorityQueue((long a, long b) ->
+                    Integer.compare(squaredDistance(a, cx, cy, cz), squaredDistance(b, cx, cy, cz)));
+        }
+
+        // Distance along one axis from the coordinate to the nearest block of the section
+        private static int axisDistance(int c, int section) {
+            int min = section << 4;
+            return c < min ? min - c : c > min + 15 ? c - min - 15 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next < sections.length && (heap.isEmpty()
+                    || squaredDistance(heap.firstLong(), cx, cy, cz) > (int) (sections[next] >>> 32))) {
+                int i = (int) sections[next++];
+                LongOpenHashSet bucket = buckets.get(ChunkSectionPos.asLong(
+                        minX + i / (sizeY * sizeZ), minY + i / sizeZ % sizeY, minZ + i % sizeZ));
+                LongIterator it = bucket.iterator();
+                while (it.hasNext()) {
+                    long packed = it.nextLong();
+                    if (squaredDistance(packed, cx, cy, cz) <= r2 && filter.test(packed)) {
+                        heap.enqueue(packed);
+                    }
+                }
+            }
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return heap.dequeueLong();
+        }
+    }
+
+    public static int squaredDistance(long packed, int x, int y, int z) {
+        int dx = BlockPos.unpackLongX(packed) - x;
+        int dy = BlockPos.unpackLongY(packed) - y;
+        int dz = BlockPos.unpackLongZ(packed) - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void indexChunk(WorldChunk chunk) {
+        ChunkSection[] sections = chunk.getSectionArray();
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+        for (int i = 0; i < sections.length; i++) {
+            ChunkSection section = sections[i];
+            // One palette check rejects sections with no tree blocks at all
+            if (section.isEmpty() || !section.hasAny(BlockClassifier::isTree)) {
+                continue;
+            }
+            int sectionY = chunk.sectionIndexToCoord(i);
+            long sectionKey = ChunkSectionPos.asLong(chunkX, sectionY, chunkZ);
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int flags = BlockClassifier.getFlags(section.getBlockState(x, y, z));
+                        if ((flags & BlockClassifier.LOG) != 0) {
+                            update(logs, sectionKey,
+                                    BlockPos.asLong((chunkX << 4) + x, (sectionY << 4) + y, (chunkZ << 4) + z), true);
+                        } else if ((flags & BlockClassifier.LEAVES) != 0) {
+                            update(leaves, sectionKey,
+                                    BlockPos.asLong((chunkX << 4) + x, (sectionY << 4) + y, (chunkZ << 4) + z), true);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Drop workstations nobody reported since the last refresh, and the chunks only they kept
+    private void refreshWatched(ServerWorld world) {
+        LongIterator it = workstations.iterator();
+        while (it.hasNext()) {
+            long workstation = it.nextLong();
+            if (reported.contains(workstation)) {
+                continue;
+            }
+            it.remove();
+            forEachChunkInRange(workstation, chunkPos -> {
+                if (watchedChunks.addTo(chunkPos, -1) <= 1) {
+                    watchedChunks.remove(chunkPos);
+                    WorldChunk chunk = world.getChunkManager().getWorldChunk(
+                            ChunkPos.getPackedX(chunkPos), ChunkPos.getPackedZ(chunkPos));
+                    if (chunk != null) {
+                        dropChunk(chunk);
+                    }
+                }
+            });
+        }
+        reported.clear();
+    }
+
+    private void forEachChunkInRange(long workstation, LongConsumer action) {
+        int x = BlockPos.unpackLongX(workstation), z = BlockPos.unpackLongZ(workstation);
+        for (int chunkX = (x - WATCH_RADIUS) >> 4; chunkX <= (x + WATCH_RADIUS) >> 4; chunkX++) {
+            for (int chunkZ = (z - WATCH_RADIUS) >> 4; chunkZ <= (z + WATCH_RADIUS) >> 4; chunkZ++) {
+                action.accept(ChunkPos.toLong(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private void dropChunk(WorldChunk chunk) {
+        int chunkX = chunk.getPos().x;
+        int chunkZ = chunk.getPos().z;
+        for (int i = 0; i < chunk.getSectionArray().length; i++) {
+            long sectionKey = ChunkSectionPos.asLong(chunkX, chunk.sectionIndexToCoord(i), chunkZ);
+            logs.remove(sectionKey);
+            leaves.remove(sectionKey);
+        }
+    }
+
+    private static boolean contains(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, long packed) {
+        LongOpenHashSet bucket = buckets.get(ChunkSectionPos.fromBlockPos(packed));
+        return bucket != null && bucket.contains(packed);
+    }
+
+    private static void update(Long2ObjectOpenHashMap<LongOpenHashSet> buckets, long section, long packed,
+            boolean present) {
+        if (present) {
+            LongOpenHashSet bucket = buckets.get(section);
+            if (bucket == null) {
+                bucket = new LongOpenHashSet();
+                buckets.put(section, bucket);
+            }
+            bucket.add(packed);
+        } else {
+            LongOpenHashSet bucket = buckets.get(section);
+            if (bucket != null && bucket.remove(packed) && bucket.isEmpty()) {
+                buckets.remove(section);
+            }
+        }
+    }
+}
@@ -1,24 +1,26 @@
 package com.mcsettlers;
 
+import com.mcsettlers.utils.LoadedBlockView;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.ai.brain.Brain;
 import net.minecraft.entity.ai.brain.MemoryModuleType;
 import net.minecraft.entity.ai.brain.WalkTarget;
 import net.minecraft.entity.passive.VillagerEntity;
-import net.minecraft.registry.tag.BlockTags;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.GlobalPos;
 import net.minecraft.util.math.Vec3d;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import com.mcsettlers.utils.RadiusGenerator;
 
 public class WoodcutterBrain {
+    // Logs must be within this many blocks of the workstation
+    static final int SEARCH_RADIUS = 10;
+
     // Find an axe in the villager's inventory
     private static net.minecraft.item.ItemStack findAxeInInventory(VillagerEntity villager) {
         for (int i = 0; i < villager.getInventory().size(); i++) {
@@ -30,144 +32,432 @@ public class WoodcutterBrain {
         return net.minecraft.item.ItemStack.EMPTY;
     }
 
-    // Raycast from villager to target block, return first log/leaf in the way
-    // (excluding target)
-    private static BlockPos getObstructingLogOrLeaf(VillagerEntity villager, ServerWorld world, BlockPos target) {
-        Vec3d eyePos = villager.getPos().add(0, villager.getStandingEyeHeight(), 0);
-        Vec3d targetCenter = Vec3d.ofCenter(target);
-        Vec3d dir = targetCenter.subtract(eyePos).normalize();
-        double distance = eyePos.distanceTo(targetCenter);
-        for (double step = 0.5; step < distance; step += 0.5) {
-            Vec3d pos = eyePos.add(dir.multiply(step));
-            BlockPos blockPos = BlockPos.ofFloored(pos);
-            if (blockPos.equals(target))
-                continue; // skip the target itself
-            BlockState state = world.getBlockState(blockPos);
-            if (state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.LEAVES)) {
-                return blockPos;
-            }
-        }
-        return null;
+    private static JobStatus currentStatus(VillagerEntity villager) {
+        JobStatus status = SettlerStateStore.getStatus(villager);
+        return status != null ? status : JobStatus.IDLE;
+    }
+
+    private static void setJobStatus(VillagerEntity villager, JobStatus status) {
+        JobStatus previous = SettlerStateStore.getStatus(villager);
+        if (previous != null) {
+            // Transitions the table does not allow are refused, the villager stays where it is
+            if (!previous.canTransitionTo(status)) {
+                if (SettlerTrace.STATE) {
+                    SettlerTrace.record(villager, TraceEvent.UNEXPECTED_TRANSITION, villager.getBlockPos(),
+                            SettlerTrace.transition(previous, status));
+                }
+                MCSettlers.LOGGER.warn("[WoodcutterBrain] Refused job status change {} -> {} for villager {}",
+                        previous.getLabel(), status.getLabel(), villager.getUuid());
+                return;
+            }
+            exitState(previous, villager);
+        }
+        JobStatus.recordTransition(previous, status);
+        SettlerStateStore.setStatus(villager, status);
+        enterState(status, villager);
+        if (SettlerTrace.STATE) {
+            SettlerTrace.record(villager, TraceEvent.STATE_CHANGE, villager.getBlockPos(),
+                    SettlerTrace.transition(previous, status));
+        }
+    }
+
+    private static void enterState(JobStatus status, VillagerEntity villager) {
+        // When breaking or pillaring, disable AI to prevent movement
+        // Otherwise enable AI
+        villager.setAiDisabled(status.isAiDisabled());
+        switch (status) {
+            case NO_WORK -> // Wait 100 ticks before looking for work again
+                SettlerStateStore.setNoWorkUntil(villager, villager.getWorld().getTime() + 100);
+            default -> {
+            }
+        }
+    }
+
+    private static void exitState(JobStatus status, VillagerEntity villager) {
+        switch (status) {
+            case SEARCHING -> {
+                AsyncSearch.cancel(villager);
+                FellingJobBoard.cancel((ServerWorld) villager.getWorld(), villager);
+            }
+            case NO_WORK -> SettlerStateStore.clearNoWorkUntil(villager);
+            default -> {
+            }
+        }
+    }
+
+    // How expensive this villager's next tick is, for SettlerScheduler
+    public static SettlerScheduler.TickCost tickCost(VillagerEntity villager, long time) {
+        JobStatus jobStatus = currentStatus(villager);
+        return switch (jobStatus) {
+            // Searches for a new target
+            case IDLE -> SettlerScheduler.isPhase(villager, time, SettlerConfig.SEARCH_INTERVAL)
+                    ? SettlerScheduler.TickCost.EXPENSIVE
+                    : SettlerScheduler.TickCost.SKIP;
+            // Climbs or breaks one step of the planned ascent
+            case PILLARING -> SettlerScheduler.isPhase(villager, time, SettlerConfig.PILLAR_INTERVAL)
+                    ? SettlerScheduler.TickCost.CHEAP
+                    : SettlerScheduler.TickCost.SKIP;
+            default -> SettlerScheduler.TickCost.CHEAP;
+        };
+    }
+
+    // Called when a villager got its state back from SettlerWorldState. Walk targets and
+    // searches are not saved, so those villagers resume from their target while idle.
+    public static void onRestored(VillagerEntity villager) {
+        JobStatus status = SettlerStateStore.getStatus(villager);
+        if (status == JobStatus.WALKING || status == JobStatus.SEARCHING) {
+            SettlerStateStore.setStatus(villager, JobStatus.IDLE);
+        }
     }
 
-    private static void setJobStatus(Brain<?> brain, VillagerEntity villager, String status) {
-        brain.remember(ModMemoryModules.JOB_STATUS, status);
-        villager.setCustomName(net.minecraft.text.Text.of(status));
-        villager.setCustomNameVisible(true);
-        MCSettlers.LOGGER.info("[WoodcutterBrain] Set job status to " + status + " for villager "
-                + villager.getUuidAsString());
-        
+    // Drop per-tick work before switching to the coarse simulation. Returns false in the
+    // middle of breaking or pillaring, the full brain has to finish those first.
+    public static boolean enterCoarse(VillagerEntity villager) {
+        Brain<?> brain = villager.getBrain();
+        JobStatus jobStatus = currentStatus(villager);
+        switch (jobStatus) {
+            case IDLE, NO_WORK -> {
+                return true;
+            }
+            case WALKING, SEARCHING -> {
+                brain.forget(MemoryModuleType.WALK_TARGET);
+                SettlerStateStore.clearTarget(villager);
+                setJobStatus(villager, JobStatus.IDLE);
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    // Statistical stand-in for the full brain: no walking, raycasts or animation, just
+    // the average number of blocks of the current tree removed at once
+    public static void tickCoarse(VillagerEntity villager, ServerWorld world) {
+        long tickStart = System.nanoTime();
+        Brain<?> brain = villager.getBrain();
+        JobStatus jobStatus = currentStatus(villager);
+        BlockPos workstation = brain.getOptionalMemory(MemoryModuleType.JOB_SITE)
+                .map(GlobalPos::pos)
+                .orElse(null);
+        if (workstation == null) {
+            return;
+        }
+        TreeIndex.watch(world, workstation);
+        if (jobStatus == JobStatus.NO_WORK) {
+            long noWorkUntil = SettlerStateStore.getNoWorkUntil(villager);
+            if (noWorkUntil >= 0 && world.getTime() < noWorkUntil) {
+                return;
+            }
+            setJobStatus(villager, JobStatus.IDLE);
+        }
+
+        FellingPlan plan = FellingPlans.get(villager);
+        if (plan == null || plan.next(world) == null) {
+            // The villager does not move, so search around the workstation
+            SettlerMetrics.SEARCHES_STARTED.increment();
+            long start = System.nanoTime();
+            BlockPos[] found = LogSearch.findNearbyLogAndApproach(TreeIndex.get(world), new LoadedBlockView(world),
+                    workstation, workstation, SEARCH_RADIUS);
+            SettlerMetrics.recordOperation(SettlerMetrics.Operation.SEARCH, start);
+            if (found != null) {
+                planTree(villager, world, workstation, found[0]);
+            }
+            plan = FellingPlans.get(villager);
+            // Nothing found, the found block did not plan into a tree, or someone else has it
+            if (plan == null) {
+                if (SettlerTrace.SEARCH) {
+                    SettlerTrace.record(villager, TraceEvent.NO_TARGET, workstation, SEARCH_RADIUS);
+                }
+                SettlerMetrics.SEARCHES_FAILED.increment();
+                FellingJobBoard.release(world, villager);
+                setJobStatus(villager, JobStatus.NO_WORK);
+                return;
+            }
+        }
+
+        int blocks = SettlerLod.blocksPerTick(world.getRandom());
+        BlockPos next;
+        for (int i = 0; i < blocks && (next = plan.next(world)) != null; i++) {
+            SettlerMutations.breakBlock(world, next, villager);
+            SettlerMetrics.BLOCKS_BROKEN.increment();
+            plan.advance();
+        }
+        FellingJobBoard.renew(world, villager);
+        SettlerMetrics.recordOperation(SettlerMetrics.Operation.COARSE, tickStart);
     }
 
     public static void tick(VillagerEntity villager, ServerWorld world) {
         long tickStart = System.nanoTime();
         Brain<?> brain = villager.getBrain();
-        String jobStatus = brain.getOptionalMemory(ModMemoryModules.JOB_STATUS)
-                .orElse("unknown");
-        
-        if (jobStatus == null || jobStatus.isEmpty() || jobStatus.equals("unknown")) {
+        JobStatus jobStatus = SettlerStateStore.getStatus(villager);
+
+        if (jobStatus == null) {
             // If job status is unknown, set it to idle
-            setJobStatus(brain, villager, "idle");
-            jobStatus = "idle"; // Update local variable to avoid repeated lookups
+            setJobStatus(villager, JobStatus.IDLE);
+            jobStatus = JobStatus.IDLE; // Update local variable to avoid repeated lookups
         }
 
-        // When breaking or pillaring, disable AI to prevent movement
-        // Otherwise enable AI
-        if (jobStatus.equals("breaking") || jobStatus.equals("pillaring") || jobStatus.equals("stopping_pillaring")) {
-            villager.setAiDisabled(true);
-        } else {
-            villager.setAiDisabled(false);
+        tickState(villager, world, brain, jobStatus);
+
+        long tickEnd = System.nanoTime();
+        SettlerMetrics.recordTick(villager, jobStatus, tickEnd - tickStart);
+        if (SettlerTrace.STATE && tickEnd - tickStart > 500_000) { // Only trace if tick is slow (>0.5ms)
+            SettlerTrace.record(villager, TraceEvent.SLOW_TICK, villager.getBlockPos(),
+                    (long) jobStatus.ordinal() << 32 | (tickEnd - tickStart) / 1000);
         }
+    }
 
+    private static void tickState(VillagerEntity villager, ServerWorld world, Brain<?> brain, JobStatus jobStatus) {
         // Read memory values
         BlockPos workstation = brain.getOptionalMemory(MemoryModuleType.JOB_SITE)
                 .map(GlobalPos::pos)
                 .orElse(null);
-        Optional<BlockPos> optionalTarget = brain.getOptionalMemory(ModMemoryModules.TARGET_BREAK_BLOCK);
-        BlockPos targetLog = optionalTarget != null ? optionalTarget.orElse(null) : null;
-        Optional<WalkTarget> optionalWalkTarget = brain.getOptionalMemory(MemoryModuleType.WALK_TARGET);
-        BlockPos walkTarget = null;
-        if (optionalWalkTarget.isPresent()) {
-            WalkTarget wt = optionalWalkTarget.get();
-            if (wt != null && wt.getLookTarget() != null) {
-                walkTarget = wt.getLookTarget().getBlockPos();
-            }
-        }
+        BlockPos targetLog = SettlerStateStore.getTarget(villager);
 
         if (workstation == null)
             return;
+        TreeIndex.watch(world, workstation);
 
-        if (jobStatus == "walking") {
-            if (walkTarget != null) {
-                return; // Already walking, nothing to do
+        switch (jobStatus) {
+            case WALKING -> {
+                if (hasWalkTarget(brain)) {
+                    return; // Already walking, nothing to do
+                }
+                startBreakingBlock(villager, world, targetLog, brain);
             }
-            startBreakingBlock(villager, world, targetLog, brain);
-        } else if (jobStatus == "breaking") {
-            keepBreakingBlock(villager, world, targetLog, brain);
-        } else if (jobStatus == "idle") {
-            // If idle, we can search for logs
-            findNewTarget(villager, world, workstation, brain);
-        } else if (jobStatus == "pillaring") {
-            keepPillaring(villager, world, targetLog, brain);
-        } else if (jobStatus == "stopping_pillaring") {
-            keepStoppingPillaring(villager, world, targetLog, brain);
-        } else if (jobStatus == "no_work") {
-            // Set timer for 10 seconds and make the villager idle
-            // This is a placeholder; actual implementation would depend on game logic
-            long now = world.getTime();
-            Optional<Long> noWorkUntil = brain.getOptionalMemory(ModMemoryModules.NO_WORK_UNTIL_TICK);
-            if (noWorkUntil.isEmpty()) {
-                brain.remember(ModMemoryModules.NO_WORK_UNTIL_TICK, now + 100); // 10 seconds
-            } else if (now >= noWorkUntil.get()) {
-                brain.forget(ModMemoryModules.NO_WORK_UNTIL_TICK);
-                setJobStatus(brain, villager, "idle");
-                // If very far from workstation, walk to it
-                if (villager.getBlockPos().getSquaredDistance(workstation) > 30) {
-                    brain.remember(MemoryModuleType.WALK_TARGET,
-                            new net.minecraft.entity.ai.brain.WalkTarget(
-                                    new net.minecraft.entity.ai.brain.BlockPosLookTarget(workstation),
-                                    0.6F,
-                                    1 // completion range
-                            ));
+            case BREAKING -> keepBreakingBlock(villager, world, targetLog, brain);
+            // If idle, continue the current tree or search for logs
+            case IDLE -> {
+                if (followPlan(villager, world, workstation, brain)) {
+                    break;
+                }
+                if (resumeTarget(villager, world, workstation, brain)) {
+                    break;
+                }
+                if (SettlerConfig.JOB_BOARD) {
+                    requestJob(villager, world, workstation, brain);
+                } else if (SettlerConfig.ASYNC_SEARCH) {
+                    startSearch(villager, world, workstation, brain);
+                } else {
+                    findNewTarget(villager, world, workstation, brain);
+                }
+            }
+            case SEARCHING -> {
+                if (SettlerConfig.JOB_BOARD) {
+                    takeJob(villager, world, workstation, brain);
+                } else {
+                    finishSearch(villager, world, workstation, brain);
                 }
             }
+            case PILLARING -> keepPillaring(villager, world, targetLog, brain);
+            case STOPPING_PILLARING -> keepStoppingPillaring(villager, world, targetLog, brain);
+            case NO_WORK -> waitForWork(villager, world, workstation, brain);
         }
+    }
 
-        long tickEnd = System.nanoTime();
-        if (tickEnd - tickStart > 500_000) { // Only log if tick is slow (>0.5ms)
-            MCSettlers.LOGGER.info("[WoodcutterBrain] " + jobStatus + " tick took " + ((tickEnd - tickStart) / 1000) + "us");
+    private static boolean hasWalkTarget(Brain<?> brain) {
+        Optional<WalkTarget> optionalWalkTarget = brain.getOptionalMemory(MemoryModuleType.WALK_TARGET);
+        return optionalWalkTarget.isPresent() && optionalWalkTarget.get().getLookTarget() != null;
+    }
+
+    private static void waitForWork(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        // The timer is set when entering no_work, make the villager idle once it runs out
+        long now = world.getTime();
+        long noWorkUntil = SettlerStateStore.getNoWorkUntil(villager);
+        if (noWorkUntil < 0 || now >= noWorkUntil) {
+            setJobStatus(villager, JobStatus.IDLE);
+            // If very far from workstation, walk to it
+            if (villager.getBlockPos().getSquaredDistance(workstation) > 30) {
+                walkTo(villager, brain, workstation);
+            }
+        }
+    }
+
+    // Walk to the next reachable block of the tree being felled. Returns false when there
+    // is no plan or it is finished, and the villager has to search for a new tree.
+    private static boolean followPlan(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        FellingPlan plan = FellingPlans.get(villager);
+        if (plan == null) {
+            return false;
+        }
+        BlockPos next;
+        while ((next = plan.next(world)) != null) {
+            if (LogSearch.checkTargetLogForAccess(world, next) != null
+                    && walkToTarget(villager, world, workstation, brain, next)) {
+                return true;
+            }
+            plan.skip();
+        }
+        FellingPlans.set(villager, null);
+        // Don't get the unreachable part of the tree assigned again right away
+        FellingJobBoard.giveUp(world, villager, plan.getSkipped());
+        return false;
+    }
+
+    // Re-plan the tree of a target that survived a restart instead of searching again
+    private static boolean resumeTarget(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        BlockPos target = SettlerStateStore.getTarget(villager);
+        if (target == null) {
+            return false;
+        }
+        SettlerStateStore.clearTarget(villager);
+        if (!BlockClassifier.isTree(SettlerMetrics.getBlockState(world, target))) {
+            return false;
+        }
+        planTree(villager, world, workstation, target);
+        return followPlan(villager, world, workstation, brain);
+    }
+
+    // Plan the whole tree once a search found one of its logs, unless someone else has it
+    private static void planTree(VillagerEntity villager, ServerWorld world, BlockPos workstation, BlockPos found) {
+        if (FellingJobBoard.isLeasedByOther(world, villager, found)) {
+            FellingPlans.set(villager, null);
+            return;
+        }
+        FellingPlan plan = TreeDetector.detect(TreeIndex.get(world), found, workstation, SEARCH_RADIUS);
+        // The index may not know the block yet (e.g. a snapshot search), still go for it
+        if (plan == null && BlockClassifier.isTree(SettlerMetrics.getBlockState(world, found))) {
+            plan = FellingPlan.single(found);
+        }
+        FellingPlans.set(villager, plan);
+        if (plan != null) {
+            FellingJobBoard.lease(world, villager, plan);
+        }
+    }
+
+    private static void requestJob(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        FellingJobBoard.request(world, villager, workstation);
+        setJobStatus(villager, JobStatus.SEARCHING);
+    }
+
+    private static void takeJob(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        switch (FellingJobBoard.poll(world, villager)) {
+            case PENDING -> {
+            }
+            case ASSIGNED -> {
+                if (!followPlan(villager, world, workstation, brain)) {
+                    SettlerMetrics.SEARCHES_FAILED.increment();
+                    setJobStatus(villager, JobStatus.NO_WORK);
+                }
+            }
+            case NONE -> {
+                if (SettlerTrace.SEARCH) {
+                    SettlerTrace.record(villager, TraceEvent.NO_TARGET, workstation, SEARCH_RADIUS);
+                }
+                SettlerMetrics.SEARCHES_FAILED.increment();
+                setJobStatus(villager, JobStatus.NO_WORK);
+            }
+            // Lost track of the request, ask again
+            case LOST -> setJobStatus(villager, JobStatus.IDLE);
         }
     }
 
     private static void findNewTarget(VillagerEntity villager, ServerWorld world, BlockPos workstation,
             Brain<?> brain) {
-        int searchRadius = 10;
         BlockPos villagerPos = villager.getBlockPos();
-        BlockPos[] found = findNearbyLogAndApproach(world, villagerPos, workstation, searchRadius);
-        BlockPos foundLog = found != null ? found[0] : null;
-        BlockPos foundApproach = found != null ? found[1] : null;
-        if (foundLog != null) {
-            MCSettlers.LOGGER.info("[WoodcutterBrain] Found log at " + foundLog.toShortString()
-                    + ", approach at " + foundApproach.toShortString());
-            brain.remember(ModMemoryModules.TARGET_BREAK_BLOCK, foundLog);
-            // Ensure approach is walkable (not inside block, on ground)
-            BlockPos walkableApproach = foundApproach;
-            while (!world.getBlockState(walkableApproach.down()).isSolidBlock(world, walkableApproach.down())
-                    && walkableApproach.getY() > 0) {
-                walkableApproach = walkableApproach.down();
-            }
-            // Set walk target with reasonable completion range and duration
-            brain.remember(MemoryModuleType.WALK_TARGET,
-                    new net.minecraft.entity.ai.brain.WalkTarget(
-                            new net.minecraft.entity.ai.brain.BlockPosLookTarget(walkableApproach),
-                            0.6F,
-                            1 // completion range
-                    ));
-
-            setJobStatus(brain, villager, "walking");
+        SettlerMetrics.SEARCHES_STARTED.increment();
+        long start = System.nanoTime();
+        BlockPos[] found = LogSearch.findNearbyLogAndApproach(TreeIndex.get(world), new LoadedBlockView(world),
+                villagerPos, workstation, SEARCH_RADIUS);
+        SettlerMetrics.recordOperation(SettlerMetrics.Operation.SEARCH, start);
+        if (found != null) {
+            planTree(villager, world, workstation, found[0]);
+            if (followPlan(villager, world, workstation, brain)) {
+                return;
+            }
+        } else if (SettlerTrace.SEARCH) {
+            SettlerTrace.record(villager, TraceEvent.NO_TARGET, villagerPos, SEARCH_RADIUS);
+        }
+        SettlerMetrics.SEARCHES_FAILED.increment();
+        setJobStatus(villager, JobStatus.NO_WORK);
+    }
+
+    private static void startSearch(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        // Stay idle and retry on a later phase if the search pool is saturated
+        if (AsyncSearch.submit(villager, world, villager.getBlockPos(), workstation, SEARCH_RADIUS)) {
+            setJobStatus(villager, JobStatus.SEARCHING);
+        }
+    }
+
+    private static void finishSearch(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain) {
+        CompletableFuture<BlockPos[]> search = AsyncSearch.get(villager);
+        if (search == null) {
+            // Lost track of the search (e.g. the pool was restarted), look again
+            setJobStatus(villager, JobStatus.IDLE);
+            return;
+        }
+        if (!search.isDone()) {
+            return;
+        }
+        BlockPos[] found;
+        try {
+            found = search.join();
+        } catch (CompletionException | CancellationException e) {
+            MCSettlers.LOGGER.warn("[WoodcutterBrain] Target search failed for villager {}", villager.getUuid(), e);
+            found = null;
+        }
+        if (found == null) {
+            if (SettlerTrace.SEARCH) {
+                SettlerTrace.record(villager, TraceEvent.NO_TARGET, villager.getBlockPos(), SEARCH_RADIUS);
+            }
+            SettlerMetrics.SEARCHES_FAILED.increment();
+            setJobStatus(villager, JobStatus.NO_WORK);
+            return;
+        }
+        // The snapshot may be a few ticks old, make sure the target is still there
+        if (BlockClassifier.isTree(SettlerMetrics.getBlockState(world, found[0]))
+                && BlockClassifier.isAir(SettlerMetrics.getBlockState(world, found[1]))) {
+            planTree(villager, world, workstation, found[0]);
+            if (!followPlan(villager, world, workstation, brain)) {
+                SettlerMetrics.SEARCHES_FAILED.increment();
+                setJobStatus(villager, JobStatus.NO_WORK);
+            }
         } else {
-            setJobStatus(brain, villager, "no_work");
+            setJobStatus(villager, JobStatus.IDLE);
+        }
+    }
+
+    // Set walk target with reasonable completion range and duration. RouteCache only
+    // caches the paths of walks set here.
+    private static void walkTo(VillagerEntity villager, Brain<?> brain, BlockPos pos) {
+        WalkTarget walkTarget = new WalkTarget(
+                new net.minecraft.entity.ai.brain.BlockPosLookTarget(pos),
+                0.6F,
+                1 // completion range
+        );
+        RouteCache.trackWalk(villager, walkTarget);
+        brain.remember(MemoryModuleType.WALK_TARGET, walkTarget);
+    }
+
+    // Walk to the nearest reachable spot next to the block, pillaring covers the height
+    // above it. Returns false without walking if the block cannot be reached on foot.
+    private static boolean walkToTarget(VillagerEntity villager, ServerWorld world, BlockPos workstation,
+            Brain<?> brain, BlockPos foundLog) {
+        BlockPos walkableApproach = SurfaceMaps.get(world, workstation)
+                .findStandableNextTo(new LoadedBlockView(world), foundLog);
+        if (walkableApproach == null) {
+            if (SettlerTrace.SEARCH) {
+                SettlerTrace.record(villager, TraceEvent.TARGET_UNREACHABLE, foundLog, 0);
+            }
+            return false;
+        }
+        if (SettlerTrace.SEARCH) {
+            SettlerTrace.record(villager, TraceEvent.TARGET_FOUND, foundLog, walkableApproach.asLong());
         }
+        SettlerStateStore.setTarget(villager, foundLog);
+        FellingJobBoard.renew(world, villager);
+        walkTo(villager, brain, walkableApproach);
+
+        setJobStatus(villager, JobStatus.WALKING);
+        return true;
     }
 
     private static void startBreakingBlock(
@@ -186,273 +476,164 @@ public class WoodcutterBrain {
                 if (targetLog.getY() > villager.getBlockPos().getY() + 3) {
                     int squaredZXDistance = (villager.getBlockPos().getX() - targetLog.getX()) * (villager.getBlockPos().getX() - targetLog.getX());
                     if (squaredZXDistance < 5 * 5) {
-                        System.out.println("[WoodcutterBrain] Villager " + villager.getUuidAsString()
-                                + " starting to pillar up to log at " + targetLog.toShortString());
+                        if (SettlerTrace.PILLAR) {
+                            SettlerTrace.record(villager, TraceEvent.PILLAR_START, targetLog, 0);
+                        }
                         startPillaring(villager, world, targetLog, brain);
                         return;
                     }
                 }
 
-                System.out.println("[WoodcutterBrain] Villager " + villager.getUuidAsString()
-                        + " too far from target log at " + targetLog.toShortString() + " (distance: "
-                        + String.format("%.2f", dist) + ")");
+                if (SettlerTrace.BREAK) {
+                    SettlerTrace.record(villager, TraceEvent.TARGET_TOO_FAR, targetLog, (long) (dist * 100));
+                }
 
-                brain.forget(ModMemoryModules.TARGET_BREAK_BLOCK);
-                brain.forget(ModMemoryModules.BREAK_PROGRESS);
-                setJobStatus(brain, villager, "no_work");
+                // Don't walk back to the same entry after waiting, and let the lease run out
+                // if the whole tree is out of reach
+                FellingPlan plan = FellingPlans.get(villager);
+                if (plan != null && targetLog.equals(plan.next(world))) {
+                    plan.skip();
+                } else if (plan != null) {
+                    FellingPlans.set(villager, null);
+                    FellingJobBoard.release(world, villager);
+                }
+                SettlerStateStore.clearTarget(villager);
+                SettlerStateStore.setBreakProgress(villager, 0);
+                setJobStatus(villager, JobStatus.NO_WORK);
                 return;
             }
             Vec3d blockCenter = Vec3d.ofCenter(targetLog);
             villager.getLookControl().lookAt(blockCenter.x, blockCenter.y, blockCenter.z);
 
-            BlockPos obstructing = getObstructingLogOrLeaf(villager, world, targetLog);
+            long raycastStart = System.nanoTime();
+            BlockPos obstructing = LineOfSightCache.getObstructingLogOrLeaf(villager, world, targetLog);
+            SettlerMetrics.recordOperation(SettlerMetrics.Operation.RAYCAST, raycastStart);
             if (obstructing != null && !obstructing.equals(targetLog)) {
                 // If the obstructing block is different, update the break target
                 targetLog = obstructing;
-                brain.remember(ModMemoryModules.TARGET_BREAK_BLOCK, obstructing);
+                SettlerStateStore.setTarget(villager, obstructing);
                 targetLog = obstructing;
             }
             // Get or initialize breaking progress
             // Axe holding logic
             net.minecraft.item.ItemStack axeStack = findAxeInInventory(villager);
             if (!axeStack.isEmpty()) {
-                System.out.println("[WoodcutterBrain] Villager holding axe: " + axeStack);
                 villager.setStackInHand(net.minecraft.util.Hand.MAIN_HAND, axeStack);
             }
+            if (SettlerTrace.BREAK) {
+                SettlerTrace.record(villager, TraceEvent.BREAK_START, targetLog, axeStack.isEmpty() ? 0 : 1);
+            }
 
             // Animate breaking progress (0-10)
-            world.setBlockBreakingInfo(villager.getId(), targetLog, 0);
+            SettlerMutations.setBreakingStage(world, villager, targetLog, 0);
             villager.swingHand(net.minecraft.util.Hand.MAIN_HAND);
             // Remember the target block and start breaking
 
-            brain.remember(ModMemoryModules.BREAK_PROGRESS, 0);
-            setJobStatus(brain, villager, "breaking");
+            SettlerStateStore.setBreakProgress(villager, 0);
+            setJobStatus(villager, JobStatus.BREAKING);
         }
     }
 
     private static void keepBreakingBlock(
             VillagerEntity villager, ServerWorld world, BlockPos targetLog, Brain<?> brain) {
         // Continue breaking logic
-        int breakProgress = brain.getOptionalMemory(ModMemoryModules.BREAK_PROGRESS).orElse(0);
+        int breakProgress = SettlerStateStore.getBreakProgress(villager);
         // Animate breaking progress (0-10)
-        world.setBlockBreakingInfo(villager.getId(), targetLog, breakProgress);
+        SettlerMutations.setBreakingStage(world, villager, targetLog, breakProgress);
 
         if (breakProgress < 10) {
-            brain.remember(ModMemoryModules.BREAK_PROGRESS, breakProgress + 1);
+            SettlerStateStore.setBreakProgress(villager, breakProgress + 1);
         } else {
-            System.out.println("[WoodcutterBrain] Actually breaking block at " + targetLog.toShortString());
-            world.breakBlock(targetLog, true, villager);
-            world.setBlockBreakingInfo(villager.getId(), targetLog, -1); // clear animation
+            if (SettlerTrace.BREAK) {
+                SettlerTrace.record(villager, TraceEvent.BREAK_DONE, targetLog, 0);
+            }
+            SettlerMutations.breakBlock(world, targetLog, villager);
+            SettlerMetrics.BLOCKS_BROKEN.increment();
+            FellingJobBoard.renew(world, villager);
+            SettlerMutations.setBreakingStage(world, villager, targetLog, -1); // clear animation
             villager.setStackInHand(net.minecraft.util.Hand.MAIN_HAND, net.minecraft.item.ItemStack.EMPTY);
-            brain.forget(ModMemoryModules.TARGET_BREAK_BLOCK);
-            brain.forget(ModMemoryModules.BREAK_PROGRESS);
+            SettlerStateStore.clearTarget(villager);
+            SettlerStateStore.setBreakProgress(villager, 0);
             // if pillaring, keep pillaring
-            if (brain.getOptionalMemory(ModMemoryModules.PILLAR_BLOCKS).isPresent()
-            && brain.getOptionalMemory(ModMemoryModules.PILLAR_BLOCKS).get().size() > 0) {
-                if (brain.getOptionalMemory(ModMemoryModules.KEEP_PILLARING).orElse(false)) {
-                    setJobStatus(brain, villager, "pillaring");
+            if (SettlerStateStore.getPillarHeight(villager) > 0) {
+                if (SettlerStateStore.isKeepPillaring(villager)) {
+                    setJobStatus(villager, JobStatus.PILLARING);
                 } else {
-                    setJobStatus(brain, villager, "stopping_pillaring");
+                    setJobStatus(villager, JobStatus.STOPPING_PILLARING);
                 }
             } else {
-                setJobStatus(brain, villager, "idle");
-            }
-        }
-    }
-
-    private static BlockPos checkTargetLogForAccess(ServerWorld world, BlockPos targetLog) {
-        // Check if the target log is accessible (not obstructed by blocks)
-        // This is a placeholder; actual implementation would depend on game logic
-        // For now, we assume all logs are accessible
-        BlockState state = world.getBlockState(targetLog);
-        if (state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.LEAVES)) {
-
-            BlockPos approach = null;
-            for (net.minecraft.util.math.Direction dir : net.minecraft.util.math.Direction.values()) {
-
-                BlockPos adj = targetLog.offset(dir);
-                BlockState adjState = world.getBlockState(adj);
-                if (adjState.isAir()) {
-                    approach = adj;
-                    return approach;
-                }
-            }
-        }
-        return null;
-    }
-
-    // Find the nearest log/leaf and its approach air block
-    private static BlockPos[] findNearbyLogAndApproach(
-            ServerWorld world,
-            BlockPos villagerPos,
-            BlockPos workstation,
-            int radius) {
-        int r2 = radius * radius;
-        HashMap<BlockPos, Boolean> handledCoords = new HashMap<>();
-        // Get a list of all possible coordinates.
-        Iterable<BlockPos> villagerRadiusCoords = RadiusGenerator.radiusCoordinates(villagerPos, 9, pos -> {
-            BlockState state = world.getBlockState(pos);
-            handledCoords.put(pos, true);
-            if (state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.LEAVES)) {
-                if (workstation.getSquaredDistance(pos) <= r2) {
-                    return true; // Only consider positions within the radius
-                }
-            }
-            return false;
-        });
-
-        // Check all coordinates for accessible logs (villager radius, then workstation
-        // radius)
-        boolean anyLogs = false;
-        for (BlockPos pos : villagerRadiusCoords) {
-            BlockState state = world.getBlockState(pos);
-            if (state.isIn(BlockTags.LOGS)) {
-                anyLogs = true;
-                BlockPos approach = checkTargetLogForAccess(world, pos);
-                if (approach != null) {
-                    MCSettlers.LOGGER.info("[WoodcutterBrain] Found log at " + pos.toShortString()
-                            + ", approach at " + approach.toShortString());
-                    return new BlockPos[] { pos, approach };
-                }
-            }
-        }
-
-        // If no logs in range, just give up
-        if (!anyLogs) {
-            MCSettlers.LOGGER.info("[WoodcutterBrain] No logs found in radius " + radius + " around "
-                    + villagerPos.toShortString() + " or workstation " + workstation.toShortString());
-            return null;
-        }
-
-        // Check all coordinates for leaves that are attached to a log
-        for (BlockPos pos : villagerRadiusCoords) {
-            BlockState state = world.getBlockState(pos);
-            if (state.isIn(BlockTags.LEAVES)) {
-                // Check if the leaf block is attached to a log
-                boolean hasLogNeighbor = false;
-                for (net.minecraft.util.math.Direction dir : net.minecraft.util.math.Direction.values()) {
-                    BlockPos neighborPos = pos.offset(dir);
-                    BlockState neighborState = world.getBlockState(neighborPos);
-                    if (neighborState.isIn(BlockTags.LOGS)) {
-                        hasLogNeighbor = true;
-                        break; // Found a log neighbor, no need to check further
-                    }
-                }
-                if (!hasLogNeighbor) {
-                    continue; // Skip leaves not attached to a log
-                }
-                BlockPos approach = checkTargetLogForAccess(world, pos);
-                if (approach != null) {
-                    MCSettlers.LOGGER.info("[WoodcutterBrain] Found attached leaf at " + pos.toShortString()
-                            + ", approach at " + approach.toShortString());
-                    return new BlockPos[] { pos, approach };
-                }
+                setJobStatus(villager, JobStatus.IDLE);
             }
         }
-
-        // If no logs or leaves found, return null
-        MCSettlers.LOGGER.info("[WoodcutterBrain] No logs or leaves found in radius " + radius + " around "
-                + villagerPos.toShortString() + " or workstation " + workstation.toShortString());
-        return null;
-
     }
 
     private static void startPillaring(
             VillagerEntity villager, ServerWorld world, BlockPos targetLog, Brain<?> brain) {
-        // Start pillaring logic
-        // This is a placeholder; actual implementation would depend on game logic
-        // For now, we assume the villager can always pillar up
-        // Initialize pillar blocks with empty list
-        setJobStatus(brain, villager, "pillaring");
+        // Plan the whole ascent once, keepPillaring only follows it
+        long planStart = System.nanoTime();
+        PillarPlans.set(villager, PillarPlan.create(TreeIndex.get(world), villager.getBlockPos(),
+                FellingPlans.get(villager)));
+        SettlerMetrics.recordOperation(SettlerMetrics.Operation.PILLAR_SCAN, planStart);
+        setJobStatus(villager, JobStatus.PILLARING);
         villager.setAiDisabled(true);
-        brain.remember(ModMemoryModules.KEEP_PILLARING, true);
+        SettlerStateStore.setKeepPillaring(villager, true);
     }
 
     private static void keepPillaring(
             VillagerEntity villager, ServerWorld world, BlockPos targetLog, Brain<?> brain) {
 
-        // Only run this every 20 ticks
-        if (villager.getWorld().getTime() % 20 != 0) {
-            return;
-        }
+        // SettlerScheduler only runs this every SettlerConfig.PILLAR_INTERVAL ticks
         villager.setAiDisabled(true);
         // Continue pillaring logic
-        // This is a placeholder; actual implementation would depend on game logic
-        // For now, we assume the villager can always continue pillaring
-        List<BlockPos> pillarBlocks = brain.getOptionalMemory(ModMemoryModules.PILLAR_BLOCKS).orElse(null);
-
-        if (pillarBlocks == null) {
-            pillarBlocks = new ArrayList<>();
+        BlockPos villagerPos = villager.getBlockPos();
+        PillarPlan plan = PillarPlans.get(villager);
+        if (plan == null) {
+            // Lost with an unload mid-ascent, plan again from the current height
+            long planStart = System.nanoTime();
+            plan = PillarPlan.create(TreeIndex.get(world), villagerPos, FellingPlans.get(villager));
+            SettlerMetrics.recordOperation(SettlerMetrics.Operation.PILLAR_SCAN, planStart);
+            PillarPlans.set(villager, plan);
         }
 
-        BlockPos villagerPos = villager.getBlockPos();
-        // Find log with y coordinate greater than villager's aand within radius 6 in X and Z
-        Iterable<BlockPos> nearbyLogs = RadiusGenerator.radiusCoordinates(villagerPos, 4, pos -> {
-            BlockState state = world.getBlockState(pos);
-            return (state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.LEAVES))
-                    && pos.getY() > villagerPos.getY();
-        });
-
-        // If found, mark it as the target log
-        for (BlockPos pos : nearbyLogs) {
-            BlockState state = world.getBlockState(pos);
-            if (state.isIn(BlockTags.LOGS)) {
-                targetLog = pos;
-            } else if (state.isIn(BlockTags.LEAVES)) {
-                // If leaf is directly above the villager, use it as target
-                if (pos.getX() == villagerPos.getX() && pos.getZ() == villagerPos.getZ()
-                        && pos.getY() > villagerPos.getY()) {
-                    targetLog = pos;
-                } else {
-                    continue;
-                }
+        // Break whatever the plan says is in reach from this height
+        BlockPos found = plan.nextTarget(world, villagerPos.getY());
+        if (found != null) {
+            targetLog = found;
+            SettlerStateStore.setTarget(villager, found);
+            if (SettlerTrace.PILLAR) {
+                SettlerTrace.record(villager, TraceEvent.PILLAR_TARGET, found, 0);
             }
-
-            brain.remember(ModMemoryModules.TARGET_BREAK_BLOCK, pos);
-            MCSettlers.LOGGER.info("[WoodcutterBrain] Found log at " + pos.toShortString()
-                    + " while pillaring up to log at " + targetLog.toShortString());
             startBreakingBlock(villager, world, targetLog, brain);
             return;
         }
 
-        // If leaf block exists directly above the villager, use it as target
-
-        // check if we should stop pillaring
-        // We find all log blocks within a radius of 5 blocks and ANY Y above the villager
-        // If nothing found, stop pillaring
-        boolean foundAnyLogAbove = false;
-        for (int extraY = 0; extraY < 5; extraY++) {
-            Iterable<BlockPos> nearbyLogsWithExtraY = RadiusGenerator.radiusCoordinates(villagerPos.up(extraY), 4, pos -> {
-                BlockState state = world.getBlockState(pos);
-                return state.isIn(BlockTags.LOGS);
-            });
-            if (nearbyLogsWithExtraY.iterator().hasNext()) {
-                foundAnyLogAbove = true;
-                break; // Found at least one log above, no need to continue
-            }
-        }
-        if (!foundAnyLogAbove) {
-            // No logs found above, stop pillaring
-            MCSettlers.LOGGER.info("[WoodcutterBrain] No logs found above villager " + villager.getUuidAsString()
-                    + ", stopping pillaring.");
-            setJobStatus(brain, villager, "stopping_pillaring");
-            brain.remember(ModMemoryModules.KEEP_PILLARING, false);
+        // Nothing left to break at any height, come back down
+        if (plan.isDone()) {
+            if (SettlerTrace.PILLAR) {
+                SettlerTrace.record(villager, TraceEvent.PILLAR_STOP, villagerPos, 0);
+            }
+            PillarPlans.set(villager, null);
+            setJobStatus(villager, JobStatus.STOPPING_PILLARING);
+            SettlerStateStore.setKeepPillaring(villager, false);
             return;
         }
 
         // Create dirt block under the villager
         BlockPos dirtPos = villagerPos;
-        if (world.getBlockState(dirtPos).isReplaceable()) {
-            world.setBlockState(dirtPos, net.minecraft.block.Blocks.DIRT.getDefaultState());
-            MCSettlers.LOGGER.info("[WoodcutterBrain] Placed dirt block at " + dirtPos.toShortString());
-            
-            pillarBlocks.add(dirtPos); // Add the dirt block to the pillar blocks memory
-            brain.remember(ModMemoryModules.PILLAR_BLOCKS, pillarBlocks);
+        if (BlockClassifier.isReplaceable(SettlerMetrics.getBlockState(world, dirtPos))) {
+            SettlerMutations.setBlockState(world, dirtPos, net.minecraft.block.Blocks.DIRT.getDefaultState());
+            if (SettlerTrace.PILLAR) {
+                SettlerTrace.record(villager, TraceEvent.PILLAR_PLACED, dirtPos, 0);
+            }
+
+            SettlerStateStore.pushPillarBlock(villager, dirtPos); // Remember it to remove on the way down
 
             // Move villager to the block
             villager.setPos(villager.getX(), villager.getY() + 1, villager.getZ());
         } else {
-            MCSettlers.LOGGER.warn("[WoodcutterBrain] Cannot place dirt block at " + dirtPos.toShortString());
+            if (SettlerTrace.PILLAR) {
+                SettlerTrace.record(villager, TraceEvent.PILLAR_BLOCKED, dirtPos, 0);
+            }
         }
     }
 
@@ -461,16 +642,18 @@ public class WoodcutterBrain {
         // Stop pillaring logic
         // Pop latest pillar blocks from memory
         // And delete it
-        List<BlockPos> pillarBlocks = brain.getOptionalMemory(ModMemoryModules.PILLAR_BLOCKS).orElse(null);
-        if (pillarBlocks != null && !pillarBlocks.isEmpty()) {
-            BlockPos lastBlock = pillarBlocks.remove(pillarBlocks.size() - 1);
-            brain.remember(ModMemoryModules.TARGET_BREAK_BLOCK, lastBlock);
+        BlockPos lastBlock = SettlerStateStore.popPillarBlock(villager);
+        if (lastBlock != null) {
             // Move villager to the last block
             villager.setPos(villager.getX(), lastBlock.getY() + 1, villager.getZ());
+            if (!SettlerMetrics.getBlockState(world, lastBlock).isOf(net.minecraft.block.Blocks.DIRT)) {
+                return; // Already removed by someone else, just step down
+            }
+            SettlerStateStore.setTarget(villager, lastBlock);
             startBreakingBlock(villager, world, lastBlock, brain);
         } else {
             // No more pillar blocks, stop pillaring
-            setJobStatus(brain, villager, "idle");
+            setJobStatus(villager, JobStatus.IDLE);
             villager.setAiDisabled(false);
         }
     }
@@ -0,0 +1,40 @@
+package com.mcsettlers.mixin;
+
+import com.mcsettlers.SettlerRegistry;
+import com.mcsettlers.SettlerSensors;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.ai.brain.Brain;
+import net.minecraft.entity.ai.brain.sensor.Sensor;
+import net.minecraft.entity.ai.brain.sensor.SensorType;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.Map;
+
+@Mixin(Brain.class)
+public class BrainMixin<E extends LivingEntity> {
+    @Shadow
+    @Final
+    private Map<SensorType<? extends Sensor<? super E>>, Sensor<? super E>> sensors;
+
+    // Settler villagers tick a reduced sensor set, see SettlerSensors
+    @Inject(method = "tickSensors", at = @At("HEAD"), cancellable = true)
+    private void settlers$tickSettlerSensors(ServerWorld world, E entity, CallbackInfo ci) {
+        if (!(entity instanceof VillagerEntity villager) || !SettlerRegistry.isSettler(villager)) {
+            return;
+        }
+        long time = world.getTime();
+        for (Map.Entry<SensorType<? extends Sensor<? super E>>, Sensor<? super E>> entry : sensors.entrySet()) {
+            if (SettlerSensors.shouldTick(villager, entry.getKey(), time)) {
+                entry.getValue().tick(world, entity);
+            }
+        }
+        ci.cancel();
+    }
+}
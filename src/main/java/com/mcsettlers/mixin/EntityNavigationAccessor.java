@@ -0,0 +1,20 @@
+package com.mcsettlers.mixin;
+
+import net.minecraft.entity.ai.pathing.EntityNavigation;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+// Navigation state findPathTo sets on success, for paths RouteCache hands out instead
+@Mixin(EntityNavigation.class)
+public interface EntityNavigationAccessor {
+    @Accessor("currentTarget")
+    void settlers$setCurrentTarget(BlockPos target);
+
+    @Accessor("currentDistance")
+    void settlers$setCurrentDistance(int distance);
+
+    @Invoker("resetNode")
+    void settlers$resetNode();
+}
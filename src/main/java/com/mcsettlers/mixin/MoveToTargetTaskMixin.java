@@ -0,0 +1,22 @@
+package com.mcsettlers.mixin;
+
+import com.mcsettlers.RouteCache;
+import net.minecraft.entity.ai.brain.WalkTarget;
+import net.minecraft.entity.ai.brain.task.MoveToTargetTask;
+import net.minecraft.entity.ai.pathing.EntityNavigation;
+import net.minecraft.entity.ai.pathing.Path;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(MoveToTargetTask.class)
+public class MoveToTargetTaskMixin {
+    // Settlers take their walk target paths from RouteCache
+    @Redirect(method = "hasFinishedPath", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/ai/pathing/EntityNavigation;findPathTo(Lnet/minecraft/util/math/BlockPos;I)Lnet/minecraft/entity/ai/pathing/Path;"))
+    private Path settlers$findCachedPath(EntityNavigation navigation, BlockPos target, int distance,
+            MobEntity entity, WalkTarget walkTarget, long time) {
+        return RouteCache.findPathTo(navigation, entity, walkTarget, target, distance);
+    }
+}
@@ -0,0 +1,25 @@
+package com.mcsettlers.mixin;
+
+import com.mcsettlers.LineOfSightCache;
+import com.mcsettlers.RouteCache;
+import com.mcsettlers.SurfaceMaps;
+import com.mcsettlers.TreeIndex;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public class ServerWorldMixin {
+    @Inject(method = "onBlockChanged", at = @At("HEAD"))
+    private void settlers$onBlockChanged(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci) {
+        ServerWorld world = (ServerWorld) (Object) this;
+        TreeIndex.onBlockChanged(world, pos, oldBlock, newBlock);
+        LineOfSightCache.onBlockChanged(world, pos, oldBlock, newBlock);
+        SurfaceMaps.onBlockChanged(world, pos, oldBlock, newBlock);
+        RouteCache.onBlockChanged(world, pos, oldBlock, newBlock);
+    }
+}
@@ -0,0 +1,90 @@
+package com.mcsettlers.utils;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+// Live view of the chunks a world already has loaded. ServerWorld.getBlockState loads
+// (or generates) a missing chunk on the spot; this reads as air there instead, like
+// SectionSnapshot. Server thread only, and meant to live for one search.
+public class LoadedBlockView implements PalettedBlockView {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final ServerWorld world;
+    // Searches read the same chunk over and over, skip the chunk manager lookup for it
+    private long lastChunk = Long.MIN_VALUE;
+    private WorldChunk lastChunkValue;
+
+    public LoadedBlockView(ServerWorld world) {
+        this.world = world;
+    }
+
+    private WorldChunk getChunk(int chunkX, int chunkZ) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (key != lastChunk) {
+            lastChunk = key;
+            lastChunkValue = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+        }
+        return lastChunkValue;
+    }
+
+    public boolean isChunkLoaded(int chunkX, int chunkZ) {
+        return getChunk(chunkX, chunkZ) != null;
+    }
+
+    private ChunkSection getSection(int sectionX, int sectionY, int sectionZ) {
+        WorldChunk chunk = getChunk(sectionX, sectionZ);
+        if (chunk == null) {
+            return null;
+        }
+        int index = chunk.sectionCoordToIndex(sectionY);
+        ChunkSection[] sections = chunk.getSectionArray();
+        if (index < 0 || index >= sections.length || sections[index].isEmpty()) {
+            return null;
+        }
+        return sections[index];
+    }
+
+    @Override
+    public boolean sectionHasAny(int sectionX, int sectionY, int sectionZ, Predicate<BlockState> predicate) {
+        ChunkSection section = getSection(sectionX, sectionY, sectionZ);
+        return section != null && section.hasAny(predicate);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        ChunkSection section = getSection(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        if (section == null) {
+            return AIR;
+        }
+        return section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return getChunk(pos.getX() >> 4, pos.getZ() >> 4) != null ? world.getBlockEntity(pos) : null;
+    }
+
+    @Override
+    public int getBottomY() {
+        return world.getBottomY();
+    }
+
+    @Override
+    public int getHeight() {
+        return world.getHeight();
+    }
+}
@@ -0,0 +1,14 @@
+package com.mcsettlers.utils;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.BlockView;
+
+import java.util.function.Predicate;
+
+// BlockView that can answer for a whole chunk section from its palette, so scans can
+// reject sections before reading any of their blocks
+public interface PalettedBlockView extends BlockView {
+    // Whether the section may hold a state matching the predicate. Sections that are
+    // empty or not available read as air and answer false.
+    boolean sectionHasAny(int sectionX, int sectionY, int sectionZ, Predicate<BlockState> predicate);
+}
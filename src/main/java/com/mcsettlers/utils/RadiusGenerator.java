@@ -3,41 +3,110 @@ package com.mcsettlers.utils;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class RadiusGenerator {
+    public static final int MAX_RADIUS = 16;
+
+    // Offsets of every block within MAX_RADIUS, packed as (dx, dy, dz) triples and
+    // sorted by squared distance. The offsets of a smaller radius are a prefix of
+    // this table, so PREFIX_LENGTH[r] is the number of triples within radius r.
+    private static final int[] OFFSETS;
+    private static final int[] PREFIX_LENGTH = new int[MAX_RADIUS + 1];
+
+    static {
+        List<int[]> offsets = new ArrayList<>();
+        int max2 = MAX_RADIUS * MAX_RADIUS;
+        for (int dx = -MAX_RADIUS; dx <= MAX_RADIUS; dx++) {
+            for (int dy = -MAX_RADIUS; dy <= MAX_RADIUS; dy++) {
+                for (int dz = -MAX_RADIUS; dz <= MAX_RADIUS; dz++) {
+                    int d2 = dx * dx + dy * dy + dz * dz;
+                    if (d2 <= max2) {
+                        offsets.add(new int[] { d2, dy, dx, dz });
+                    }
+                }
+            }
+        }
+        // Ties are broken bottom-up so the order is stable between runs
+        offsets.sort(Comparator.<int[]>comparingInt(o -> o[0])
+                .thenComparingInt(o -> o[1])
+                .thenComparingInt(o -> o[2])
+                .thenComparingInt(o -> o[3]));
+
+        OFFSETS = new int[offsets.size() * 3];
+        int r = 0;
+        for (int i = 0; i < offsets.size(); i++) {
+            int[] o = offsets.get(i);
+            while (o[0] > r * r) {
+                PREFIX_LENGTH[r++] = i;
+            }
+            OFFSETS[i * 3] = o[2];
+            OFFSETS[i * 3 + 1] = o[1];
+            OFFSETS[i * 3 + 2] = o[3];
+        }
+        while (r <= MAX_RADIUS) {
+            PREFIX_LENGTH[r++] = offsets.size();
+        }
+    }
+
     public static Iterable<BlockPos> radiusCoordinates(BlockPos center, int radius) {
         return radiusCoordinates(center, radius, pos -> true);
     }
 
-    public static Iterable<BlockPos> radiusCoordinates(BlockPos center, int radius, java.util.function.Predicate<BlockPos> filter) {
+    // Lazily walks the sphere outwards from the center, nearest first. The filter is
+    // only evaluated as far as the caller iterates, and both the filter and the
+    // iterator see a single mutable cursor: call toImmutable() to keep a position.
+    public static Iterable<BlockPos> radiusCoordinates(BlockPos center, int radius, Predicate<BlockPos> filter) {
+        int count = offsetCount(radius);
         return () -> new Iterator<BlockPos>() {
-            private final PriorityQueue<BlockPos> queue = new PriorityQueue<>(Comparator.comparingDouble(p -> p.getSquaredDistance(center)));
-            private final Set<BlockPos> seen = new HashSet<>();
-            private final int r = radius;
-
-            {
-                for (int dx = -r; dx <= r; dx++) {
-                    for (int dy = -r; dy <= r; dy++) {
-                        for (int dz = -r; dz <= r; dz++) {
-                            BlockPos pos = center.add(dx, dy, dz);
-                            if (center.getSquaredDistance(pos) <= r * r && filter.test(pos)) {
-                                queue.add(pos);
-                                seen.add(pos);
-                            }
-                        }
-                    }
-                }
-            }
+            private final BlockPos.Mutable cursor = new BlockPos.Mutable();
+            private int index = 0;
+            private boolean ready = false;
 
             @Override
             public boolean hasNext() {
-                return !queue.isEmpty();
+                if (ready) {
+                    return true;
+                }
+                while (index < count) {
+                    int i = index++ * 3;
+                    cursor.set(center, OFFSETS[i], OFFSETS[i + 1], OFFSETS[i + 2]);
+                    if (filter.test(cursor)) {
+                        ready = true;
+                        return true;
+                    }
+                }
+                return false;
             }
 
             @Override
             public BlockPos next() {
-                return queue.poll();
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return cursor;
             }
         };
     }
+
+    // Nearest position within the radius matching the filter, or null
+    public static BlockPos findFirst(BlockPos center, int radius, Predicate<BlockPos> filter) {
+        int count = offsetCount(radius);
+        BlockPos.Mutable cursor = new BlockPos.Mutable();
+        for (int i = 0; i < count * 3; i += 3) {
+            cursor.set(center, OFFSETS[i], OFFSETS[i + 1], OFFSETS[i + 2]);
+            if (filter.test(cursor)) {
+                return cursor.toImmutable();
+            }
+        }
+        return null;
+    }
+
+    private static int offsetCount(int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius " + radius + " outside 0.." + MAX_RADIUS);
+        }
+        return PREFIX_LENGTH[radius];
+    }
 }
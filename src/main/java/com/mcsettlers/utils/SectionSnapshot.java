@@ -0,0 +1,92 @@
+package com.mcsettlers.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+// Immutable copy of the block palettes around a position, safe to read from any thread.
+// Empty sections and chunks that were not loaded at capture time read as air.
+public class SectionSnapshot implements PalettedBlockView {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<>();
+    private final int bottomY;
+    private final int height;
+
+    private SectionSnapshot(int bottomY, int height) {
+        this.bottomY = bottomY;
+        this.height = height;
+    }
+
+    // Must be called on the server thread. Never loads chunks.
+    public static SectionSnapshot capture(ServerWorld world, BlockPos center, int radius) {
+        SectionSnapshot snapshot = new SectionSnapshot(world.getBottomY(), world.getHeight());
+        int minX = (center.getX() - radius) >> 4, maxX = (center.getX() + radius) >> 4;
+        int minY = (center.getY() - radius) >> 4, maxY = (center.getY() + radius) >> 4;
+        int minZ = (center.getZ() - radius) >> 4, maxZ = (center.getZ() + radius) >> 4;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(cx, cz);
+                if (chunk == null) {
+                    continue;
+                }
+                ChunkSection[] chunkSections = chunk.getSectionArray();
+                for (int sy = minY; sy <= maxY; sy++) {
+                    int index = chunk.sectionCoordToIndex(sy);
+                    if (index < 0 || index >= chunkSections.length || chunkSections[index].isEmpty()) {
+                        continue;
+                    }
+                    snapshot.sections.put(ChunkSectionPos.asLong(cx, sy, cz),
+                            chunkSections[index].getBlockStateContainer().copy());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public boolean sectionHasAny(int sectionX, int sectionY, int sectionZ, Predicate<BlockState> predicate) {
+        PalettedContainer<BlockState> container = sections.get(ChunkSectionPos.asLong(sectionX, sectionY, sectionZ));
+        return container != null && container.hasAny(predicate);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        PalettedContainer<BlockState> container = sections.get(ChunkSectionPos.asLong(
+                pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+        if (container == null) {
+            return AIR;
+        }
+        return container.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}